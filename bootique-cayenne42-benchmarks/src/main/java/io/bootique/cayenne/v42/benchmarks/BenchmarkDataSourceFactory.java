@@ -0,0 +1,58 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.benchmarks;
+
+import io.bootique.jdbc.DataSourceFactory;
+import org.apache.derby.jdbc.EmbeddedDataSource;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A single-DataSource factory backed by an embedded in-memory Derby database.
+ */
+class BenchmarkDataSourceFactory implements DataSourceFactory {
+
+    static final String DATASOURCE_NAME = "benchmark";
+
+    private final EmbeddedDataSource dataSource;
+
+    BenchmarkDataSourceFactory() {
+        this.dataSource = new EmbeddedDataSource();
+        this.dataSource.setDatabaseName("memory:benchmark");
+        this.dataSource.setCreateDatabase("create");
+    }
+
+    @Override
+    public DataSource forName(String dataSourceName) {
+        return DATASOURCE_NAME.equals(dataSourceName) ? dataSource : null;
+    }
+
+    @Override
+    public Collection<String> allNames() {
+        return Collections.singleton(DATASOURCE_NAME);
+    }
+
+    @Override
+    public boolean isStarted(String dataSourceName) {
+        return DATASOURCE_NAME.equals(dataSourceName);
+    }
+}
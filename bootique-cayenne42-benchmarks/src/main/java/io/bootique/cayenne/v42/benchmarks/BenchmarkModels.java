@@ -0,0 +1,74 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Generates synthetic Cayenne models of arbitrary size for the benchmarks.
+ */
+class BenchmarkModels {
+
+    static Path writeDataMap(Path dir, String name, int entityCount) throws IOException {
+
+        Path file = dir.resolve(name + ".map.xml");
+
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("<?xml version=\"1.0\" encoding=\"utf-8\"?>\n");
+            out.write("<data-map xmlns=\"http://cayenne.apache.org/schema/10/modelMap\" project-version=\"10\">\n");
+
+            for (int i = 0; i < entityCount; i++) {
+                String table = name + "_t" + i;
+                out.write("  <db-entity name=\"" + table + "\">\n");
+                out.write("    <db-attribute name=\"id\" type=\"BIGINT\" isPrimaryKey=\"true\" isMandatory=\"true\"/>\n");
+                for (int j = 0; j < 10; j++) {
+                    out.write("    <db-attribute name=\"c" + j + "\" type=\"VARCHAR\" length=\"100\"/>\n");
+                }
+                out.write("  </db-entity>\n");
+
+                out.write("  <obj-entity name=\"E" + table + "\" dbEntityName=\"" + table + "\">\n");
+                for (int j = 0; j < 10; j++) {
+                    out.write("    <obj-attribute name=\"c" + j + "\" type=\"java.lang.String\" db-attribute-path=\"c" + j + "\"/>\n");
+                }
+                out.write("  </obj-entity>\n");
+            }
+
+            out.write("</data-map>\n");
+        }
+
+        return file;
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.benchmarks;
+
+import io.bootique.cayenne.v42.CayenneConfigMerger;
+import io.bootique.cayenne.v42.DataMapConfig;
+import io.bootique.cayenne.v42.ServerRuntimeFactory;
+import io.bootique.resource.ResourceFactory;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.di.Module;
+import org.apache.cayenne.query.SQLExec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A Cayenne runtime over an embedded Derby database with a single synthetic entity, whose table is created on
+ * startup.
+ */
+class BenchmarkRuntime implements AutoCloseable {
+
+    static final String MAP_NAME = "bench";
+    static final String TABLE_NAME = MAP_NAME + "_t0";
+    static final String ENTITY_NAME = "E" + TABLE_NAME;
+
+    private final Path mapsDir;
+    private final ServerRuntime runtime;
+
+    BenchmarkRuntime(ServerRuntimeFactory factory, Collection<Module> extraModules) throws IOException {
+        this.mapsDir = Files.createTempDirectory("bq-cayenne-maps");
+
+        DataMapConfig map = new DataMapConfig();
+        map.setName(MAP_NAME);
+        map.setLocation(new ResourceFactory(BenchmarkModels.writeDataMap(mapsDir, MAP_NAME, 1).toUri().toString()));
+
+        factory.setDatasource(BenchmarkDataSourceFactory.DATASOURCE_NAME);
+        factory.setMaps(Collections.singletonList(map));
+        factory.setCreateSchema(true);
+
+        this.runtime = factory.createCayenneRuntime(
+                new BenchmarkDataSourceFactory(),
+                new CayenneConfigMerger(),
+                extraModules,
+                Collections.emptyList());
+
+        // the schema is created when the domain starts, and may remain from the previous trial in the same JVM
+        deleteAll();
+    }
+
+    ServerRuntime getRuntime() {
+        return runtime;
+    }
+
+    void deleteAll() {
+        SQLExec.query(MAP_NAME, "DELETE FROM " + TABLE_NAME).update(runtime.newContext());
+    }
+
+    void insert(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO " + TABLE_NAME + " (id, c0, c1) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+
+            sql.append("(").append(i + 1).append(", 'a").append(i).append("', 'b").append(i).append("')");
+        }
+
+        SQLExec.query(MAP_NAME, sql.toString()).update(runtime.newContext());
+    }
+
+    @Override
+    public void close() throws IOException {
+        runtime.shutdown();
+        BenchmarkModels.deleteRecursively(mapsDir);
+    }
+}
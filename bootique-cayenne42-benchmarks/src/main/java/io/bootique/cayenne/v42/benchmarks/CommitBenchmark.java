@@ -0,0 +1,77 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.benchmarks;
+
+import io.bootique.cayenne.v42.ServerRuntimeFactory;
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures commits of new objects in batches of different sizes, including primary key generation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommitBenchmark {
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private BenchmarkRuntime runtime;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.runtime = new BenchmarkRuntime(new ServerRuntimeFactory(), Collections.emptyList());
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteAll() {
+        runtime.deleteAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        runtime.close();
+    }
+
+    @Benchmark
+    public int commit() {
+        ObjectContext context = runtime.getRuntime().newContext();
+
+        for (int i = 0; i < batchSize; i++) {
+            CayenneDataObject o = new CayenneDataObject();
+            o.setObjectId(ObjectId.of(BenchmarkRuntime.ENTITY_NAME));
+            o.writeProperty("c0", "v" + i);
+            context.registerNewObject(o);
+        }
+
+        context.commitChanges();
+        return batchSize;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.benchmarks;
+
+import io.bootique.cayenne.v42.CayenneConfigMerger;
+import io.bootique.cayenne.v42.DataMapConfig;
+import io.bootique.cayenne.v42.ServerRuntimeFactory;
+import io.bootique.cayenne.v42.limit.ConnectionLimitsFactory;
+import io.bootique.resource.ResourceFactory;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.SQLSelect;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the time to run a batch of small queries from a large number of concurrent threads against an embedded
+ * Derby database, with and without per-DataSource connection limits ("cayenne.connectionLimits"). Runs the queries
+ * on a fixed pool of platform threads by default. On Java 21 or newer, virtual threads can be used instead by passing
+ * "-p executor=virtual".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ConcurrentQueryBenchmark {
+
+    private static final int QUERIES = 4096;
+    private static final String MAP_NAME = "concurrent";
+
+    @Param({"64", "1024"})
+    public int threads;
+
+    @Param({"0", "16"})
+    public int connectionLimit;
+
+    @Param({"platform"})
+    public String executor;
+
+    private Path mapsDir;
+    private ServerRuntime runtime;
+    private ExecutorService threadPool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.mapsDir = Files.createTempDirectory("bq-cayenne-maps");
+
+        DataMapConfig map = new DataMapConfig();
+        map.setName(MAP_NAME);
+        map.setLocation(new ResourceFactory(BenchmarkModels.writeDataMap(mapsDir, MAP_NAME, 1).toUri().toString()));
+
+        ServerRuntimeFactory factory = new ServerRuntimeFactory();
+        factory.setDatasource(BenchmarkDataSourceFactory.DATASOURCE_NAME);
+        factory.setMaps(Collections.singletonList(map));
+
+        if (connectionLimit > 0) {
+            ConnectionLimitsFactory limits = new ConnectionLimitsFactory();
+            limits.setDatasources(Collections.singletonMap(BenchmarkDataSourceFactory.DATASOURCE_NAME, connectionLimit));
+            factory.setConnectionLimits(limits);
+        }
+
+        this.runtime = factory.createCayenneRuntime(
+                new BenchmarkDataSourceFactory(),
+                new CayenneConfigMerger(),
+                Collections.emptyList(),
+                Collections.emptyList());
+
+        this.threadPool = createExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        threadPool.shutdownNow();
+        runtime.shutdown();
+        BenchmarkModels.deleteRecursively(mapsDir);
+    }
+
+    @Benchmark
+    public long runQueries() throws InterruptedException {
+
+        CountDownLatch done = new CountDownLatch(QUERIES);
+        AtomicLong sum = new AtomicLong();
+
+        for (int i = 0; i < QUERIES; i++) {
+            threadPool.execute(() -> {
+                try {
+                    sum.addAndGet(SQLSelect
+                            .scalarQuery("SELECT 1 FROM SYSIBM.SYSDUMMY1", MAP_NAME, Integer.class)
+                            .selectOne(runtime.newContext()));
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        return sum.get();
+    }
+
+    private ExecutorService createExecutor() {
+        switch (executor) {
+            case "platform":
+                return Executors.newFixedThreadPool(threads);
+            case "virtual":
+                // the code targets Java 8, so the Java 21 API is called reflectively. The "threads" param is ignored,
+                // as each query gets its own virtual thread
+                try {
+                    return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Virtual threads require Java 21 or newer", e);
+                }
+            default:
+                throw new IllegalArgumentException("Unknown executor: " + executor);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.benchmarks;
+
+import io.bootique.cayenne.v42.CayenneConfigMerger;
+import io.bootique.cayenne.v42.DataMapConfig;
+import io.bootique.cayenne.v42.ServerRuntimeFactory;
+import io.bootique.resource.ResourceFactory;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time to create a Cayenne runtime with a growing number of DataMaps listed under "cayenne.maps",
+ * comparing sequential and parallel DataMap loading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DataMapLoadingBenchmark {
+
+    @Param({"1", "8", "32"})
+    public int mapCount;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Path mapsDir;
+    private List<DataMapConfig> maps;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.mapsDir = Files.createTempDirectory("bq-cayenne-maps");
+        this.maps = new ArrayList<>(mapCount);
+
+        for (int i = 0; i < mapCount; i++) {
+            Path file = BenchmarkModels.writeDataMap(mapsDir, "map" + i, 100);
+
+            DataMapConfig config = new DataMapConfig();
+            config.setName("map" + i);
+            config.setLocation(new ResourceFactory(file.toUri().toString()));
+            maps.add(config);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkModels.deleteRecursively(mapsDir);
+    }
+
+    @Benchmark
+    public int createRuntime() {
+
+        ServerRuntimeFactory factory = new ServerRuntimeFactory();
+        factory.setDatasource(BenchmarkDataSourceFactory.DATASOURCE_NAME);
+        factory.setMaps(maps);
+        factory.setParallelMapLoading(parallel);
+
+        ServerRuntime runtime = factory.createCayenneRuntime(
+                new BenchmarkDataSourceFactory(),
+                new CayenneConfigMerger(),
+                Collections.emptyList(),
+                Collections.emptyList());
+
+        try {
+            return runtime.getDataDomain().getDataMaps().size();
+        } finally {
+            runtime.shutdown();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.benchmarks;
+
+import io.bootique.cayenne.v42.ServerRuntimeFactory;
+import org.apache.cayenne.DataChannelQueryFilter;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.configuration.server.ServerModule;
+import org.apache.cayenne.di.ListBuilder;
+import org.apache.cayenne.di.Module;
+import org.apache.cayenne.query.ObjectSelect;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of a chain of pass-through DataDomain query filters on a shared-cache hit, where the
+ * filters are a significant part of the query cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryFilterChainBenchmark {
+
+    @Param({"0", "4", "16"})
+    public int filterCount;
+
+    private BenchmarkRuntime runtime;
+    private ObjectContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        Module filters = b -> {
+            ListBuilder<DataChannelQueryFilter> list = ServerModule.contributeDomainQueryFilters(b);
+            for (int i = 0; i < filterCount; i++) {
+                list.add((DataChannelQueryFilter) (originatingContext, query, chain) -> chain.onQuery(originatingContext, query));
+            }
+        };
+
+        this.runtime = new BenchmarkRuntime(new ServerRuntimeFactory(), Collections.singletonList(filters));
+        runtime.insert(10);
+        this.context = runtime.getRuntime().newContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        runtime.close();
+    }
+
+    @Benchmark
+    public int cachedSelect() {
+        return ObjectSelect.dbQuery(BenchmarkRuntime.TABLE_NAME).sharedCache().select(context).size();
+    }
+}
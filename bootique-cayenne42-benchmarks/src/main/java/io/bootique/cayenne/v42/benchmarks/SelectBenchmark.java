@@ -0,0 +1,81 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.benchmarks;
+
+import io.bootique.cayenne.v42.ServerRuntimeFactory;
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.ObjectSelect;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures selecting a small table as persistent objects, with no cache, and with local and shared query cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectBenchmark {
+
+    @Param({"none", "local", "shared"})
+    public String cache;
+
+    @Param({"10", "1000"})
+    public int rows;
+
+    private BenchmarkRuntime runtime;
+    private ObjectContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.runtime = new BenchmarkRuntime(new ServerRuntimeFactory(), Collections.emptyList());
+        runtime.insert(rows);
+        this.context = runtime.getRuntime().newContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        runtime.close();
+    }
+
+    @Benchmark
+    public int select() {
+        ObjectSelect<CayenneDataObject> query = ObjectSelect.query(CayenneDataObject.class, BenchmarkRuntime.ENTITY_NAME);
+
+        switch (cache) {
+            case "local":
+                query.localCache();
+                break;
+            case "shared":
+                query.sharedCache();
+                break;
+            default:
+                break;
+        }
+
+        return query.select(context).size();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.cayenne.v42.jcache.group.CacheGroupFactory;
+import io.bootique.cayenne.v42.jcache.invalidation.InvalidationFactory;
+import io.bootique.cayenne.v42.jcache.near.NearCacheFactory;
+import io.bootique.cayenne.v42.jcache.refresh.RefreshAheadFactory;
+import io.bootique.cayenne.v42.jcache.stats.QueryCacheStats;
+import io.bootique.cayenne.v42.jcache.stats.StatsQueryCache;
+import io.bootique.cayenne.v42.jcache.stats.StatsSettings;
+import io.bootique.cayenne.v42.jcache.warmup.CacheWarmer;
+import io.bootique.cayenne.v42.jcache.warmup.WarmupFactory;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.di.Module;
+import org.apache.cayenne.query.Query;
+
+import javax.cache.CacheManager;
+import java.util.Map;
+
+/**
+ * @since 2.0.B1
+ */
+@BQConfig("Configures Cayenne query cache integration with JCache")
+public class CayenneJCacheFactory {
+
+    private NearCacheFactory nearCache;
+    private boolean statistics;
+    private boolean providerStatistics;
+    private InvalidationFactory invalidation;
+    private RefreshAheadFactory refreshAhead;
+    private Map<String, CacheGroupFactory> groups;
+    private WarmupFactory warmup;
+
+    /**
+     * Creates JCache caches for the cache groups explicitly configured in this factory. Must be called before Cayenne
+     * accesses the caches, as otherwise Cayenne would create them with the provider defaults.
+     */
+    public void createGroupCaches(CacheManager cacheManager) {
+
+        if (groups == null) {
+            return;
+        }
+
+        for (Map.Entry<String, CacheGroupFactory> e : groups.entrySet()) {
+
+            String group = e.getKey();
+            for (String existing : cacheManager.getCacheNames()) {
+                if (group.equals(existing)) {
+                    throw new IllegalStateException("Cache group '" + group
+                            + "' is already configured in the JCache provider. Remove one of the configurations.");
+                }
+            }
+
+            cacheManager.createCache(group, e.getValue().createConfiguration(group));
+        }
+    }
+
+    public CacheWarmer createWarmer(Map<String, Query> queries) {
+        return (warmup != null ? warmup : new WarmupFactory()).createWarmer(queries);
+    }
+
+    public Module createCacheModule(QueryCacheStats stats) {
+        return b -> {
+            if (nearCache != null) {
+                nearCache.createModule().configure(b);
+            }
+
+            if (statistics) {
+                b.bind(QueryCacheStats.class).toInstance(stats);
+                b.bind(StatsSettings.class).toInstance(new StatsSettings(providerStatistics));
+                b.decorate(QueryCache.class).before(StatsQueryCache.class);
+            }
+
+            if (invalidation != null) {
+                invalidation.createModule().configure(b);
+            }
+
+            if (refreshAhead != null) {
+                refreshAhead.createModule().configure(b);
+            }
+        };
+    }
+
+    @BQConfigProperty("An optional in-process cache tier in front of JCache. When present, hot query results are " +
+            "served from heap without accessing the JCache provider.")
+    public void setNearCache(NearCacheFactory nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    @BQConfigProperty("Whether to collect per-group query cache statistics, available via injectable " +
+            "QueryCacheStats. The default is 'false'.")
+    public void setStatistics(boolean statistics) {
+        this.statistics = statistics;
+    }
+
+    @BQConfigProperty("Whether to turn on JCache provider statistics for each cache group, so that provider evictions " +
+            "are reported in QueryCacheStats. Provider statistics add overhead to every cache access. Only used " +
+            "when 'statistics' is 'true'. The default is 'false'.")
+    public void setProviderStatistics(boolean providerStatistics) {
+        this.providerStatistics = providerStatistics;
+    }
+
+    @BQConfigProperty("An optional config of batched cache invalidation. When present, cache groups invalidated by " +
+            "commits are deduplicated and removed from cache in batches on a background thread.")
+    public void setInvalidation(InvalidationFactory invalidation) {
+        this.invalidation = invalidation;
+    }
+
+    @BQConfigProperty("An optional config of refresh-ahead. When present, shared cache entries that are close to " +
+            "expiration are re-fetched in the background, while the callers are served the current entries.")
+    public void setRefreshAhead(RefreshAheadFactory refreshAhead) {
+        this.refreshAhead = refreshAhead;
+    }
+
+    @BQConfigProperty("Per-group JCache configuration, keyed by the cache group name. Allows to set expiration and " +
+            "size limits of specific groups without provider-specific config files.")
+    public void setGroups(Map<String, CacheGroupFactory> groups) {
+        this.groups = groups;
+    }
+
+    @BQConfigProperty("Configures how the warm-up queries contributed via CayenneJCacheModuleExtender are run once " +
+            "Cayenne runtime is created.")
+    public void setWarmup(WarmupFactory warmup) {
+        this.warmup = warmup;
+    }
+}
@@ -19,14 +19,19 @@
 
 package io.bootique.cayenne.v42.jcache;
 
+import io.bootique.ConfigModule;
 import io.bootique.cayenne.v42.CayenneModule;
-import io.bootique.di.BQModule;
+import io.bootique.cayenne.v42.jcache.stats.QueryCacheStats;
+import io.bootique.cayenne.v42.jcache.warmup.CacheWarmer;
+import io.bootique.cayenne.v42.jcache.warmup.WarmupQueries;
+import io.bootique.config.ConfigurationFactory;
 import io.bootique.di.Binder;
 import io.bootique.di.Key;
 import io.bootique.di.Provides;
 import org.apache.cayenne.cache.invalidation.CacheInvalidationModule;
 import org.apache.cayenne.cache.invalidation.CacheInvalidationModuleExtender;
 import org.apache.cayenne.cache.invalidation.InvalidationHandler;
+import org.apache.cayenne.query.Query;
 
 import javax.cache.CacheManager;
 import javax.inject.Qualifier;
@@ -35,6 +40,7 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -42,7 +48,14 @@ import java.util.Set;
  *
  * @since 1.0.RC1
  */
-public class CayenneJCacheModule implements BQModule {
+public class CayenneJCacheModule extends ConfigModule {
+
+    public CayenneJCacheModule() {
+    }
+
+    public CayenneJCacheModule(String configPrefix) {
+        super(configPrefix);
+    }
 
     /**
      * @param binder DI binder passed to the Module that invokes this method.
@@ -58,17 +71,47 @@ public class CayenneJCacheModule implements BQModule {
     public void configure(Binder binder) {
         extend(binder).initAllExtensions();
 
-        CayenneModule.extend(binder).addModule(Key.get(org.apache.cayenne.di.Module.class, DefinedInCayenneJCache.class));
+        // the warm-up queries (if any) are started once Cayenne runtime is created, so apps that never use Cayenne
+        // don't pay for it
+        CayenneModule.extend(binder)
+                .addModule(Key.get(org.apache.cayenne.di.Module.class, DefinedInCayenneJCache.class))
+                .addStartupListener(Key.get(CacheWarmer.class));
+    }
+
+    @Singleton
+    @Provides
+    CacheWarmer provideCacheWarmer(CayenneJCacheFactory cayenneJCacheFactory, @WarmupQueries Map<String, Query> queries) {
+        return cayenneJCacheFactory.createWarmer(queries);
+    }
+
+    @Singleton
+    @Provides
+    CayenneJCacheFactory provideCayenneJCacheFactory(ConfigurationFactory configFactory) {
+        return config(CayenneJCacheFactory.class, configFactory);
+    }
+
+    @Singleton
+    @Provides
+    QueryCacheStats provideQueryCacheStats() {
+        return new QueryCacheStats();
     }
 
     @Singleton
     @Provides
     @DefinedInCayenneJCache
-    org.apache.cayenne.di.Module provideDiJCacheModule(CacheManager cacheManager, Set<InvalidationHandler> invalidationHandlers) {
+    org.apache.cayenne.di.Module provideDiJCacheModule(
+            CacheManager cacheManager,
+            Set<InvalidationHandler> invalidationHandlers,
+            CayenneJCacheFactory cayenneJCacheFactory,
+            QueryCacheStats queryCacheStats) {
+
+        cayenneJCacheFactory.createGroupCaches(cacheManager);
+
         // return module composition
         return b -> {
             createInvalidationModule(invalidationHandlers).configure(b);
             createOverridesModule(cacheManager).configure(b);
+            cayenneJCacheFactory.createCacheModule(queryCacheStats).configure(b);
         };
     }
 
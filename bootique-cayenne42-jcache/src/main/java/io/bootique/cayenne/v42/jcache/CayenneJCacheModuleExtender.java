@@ -20,11 +20,14 @@
 package io.bootique.cayenne.v42.jcache;
 
 import io.bootique.ModuleExtender;
+import io.bootique.cayenne.v42.jcache.warmup.WarmupQueries;
 import io.bootique.di.Binder;
+import io.bootique.di.MapBuilder;
 import io.bootique.di.SetBuilder;
 import io.bootique.jcache.JCacheModule;
 import org.apache.cayenne.cache.invalidation.InvalidationHandler;
 import org.apache.cayenne.jcache.JCacheConstants;
+import org.apache.cayenne.query.Query;
 
 import javax.cache.configuration.Configuration;
 
@@ -40,6 +43,7 @@ public class CayenneJCacheModuleExtender extends ModuleExtender<CayenneJCacheMod
     @Override
     public CayenneJCacheModuleExtender initAllExtensions() {
         contributeInvalidationHandler();
+        contributeWarmupQueries();
         return this;
     }
 
@@ -59,7 +63,31 @@ public class CayenneJCacheModuleExtender extends ModuleExtender<CayenneJCacheMod
         return this;
     }
 
+    /**
+     * Sets a JCache configuration of the cache backing a given Cayenne query cache group.
+     *
+     * @since 2.0.B1
+     */
+    public CayenneJCacheModuleExtender setCacheGroupConfiguration(String cacheGroup, Configuration<?, ?> config) {
+        JCacheModule.extend(binder).setConfiguration(cacheGroup, config);
+        return this;
+    }
+
+    /**
+     * Adds a named query to run on Cayenne runtime startup to warm up the query cache. The query should use a shared cache strategy.
+     *
+     * @since 2.0.B1
+     */
+    public CayenneJCacheModuleExtender addWarmupQuery(String name, Query query) {
+        contributeWarmupQueries().putInstance(name, query);
+        return this;
+    }
+
     protected SetBuilder<InvalidationHandler> contributeInvalidationHandler() {
         return newSet(InvalidationHandler.class);
     }
+
+    protected MapBuilder<String, Query> contributeWarmupQueries() {
+        return newMap(String.class, Query.class, WarmupQueries.class);
+    }
 }
@@ -24,7 +24,10 @@ import io.bootique.cayenne.v42.CayenneModuleProvider;
 import io.bootique.di.BQModule;
 import io.bootique.jcache.JCacheModuleProvider;
 
+import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 
 import static java.util.Arrays.asList;
 
@@ -38,6 +41,11 @@ public class CayenneJCacheModuleProvider implements BQModuleProvider {
         return new CayenneJCacheModule();
     }
 
+    @Override
+    public Map<String, Type> configs() {
+        return Collections.singletonMap("cayennejcache", CayenneJCacheFactory.class);
+    }
+
     @Override
     public Collection<BQModuleProvider> dependencies() {
         return asList(
@@ -0,0 +1,153 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.group;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Bytes;
+import io.bootique.value.Duration;
+
+import javax.cache.configuration.Configuration;
+import javax.cache.configuration.Factory;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.expiry.AccessedExpiryPolicy;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.EternalExpiryPolicy;
+import javax.cache.expiry.ExpiryPolicy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configures a JCache cache backing a single Cayenne query cache group. Expiration is supported by any JCache
+ * provider, while size limits are provider-specific and currently require Ehcache 3.
+ *
+ * @since 2.0.B1
+ */
+@BQConfig("Configures a JCache cache for a single Cayenne query cache group")
+public class CacheGroupFactory {
+
+    private static final String EHCACHE_CONFIGURATION_CLASS = "org.ehcache.jsr107.Eh107Configuration";
+
+    private Duration ttl;
+    private CacheGroupExpiry expiry;
+    private Long maxEntries;
+    private Bytes heapSize;
+    private Bytes offHeapSize;
+
+    /**
+     * Creates a JCache configuration for the cache group. Key and value types are not set, as Cayenne accesses its
+     * caches without types.
+     */
+    public Configuration<Object, Object> createConfiguration(String group) {
+
+        if (!isSized()) {
+            return new MutableConfiguration<>().setExpiryPolicyFactory(createExpiryPolicyFactory());
+        }
+
+        if (maxEntries != null && heapSize != null) {
+            throw new IllegalStateException("Cache group '" + group
+                    + "' defines both 'maxEntries' and 'heapSize'. Only one of them can be used.");
+        }
+
+        if (!isEhcacheAvailable()) {
+            throw new IllegalStateException("Cache group '" + group
+                    + "' defines size limits, that are only supported with Ehcache 3 JCache provider.");
+        }
+
+        return EhcacheGroupConfigurations.create(this);
+    }
+
+    protected boolean isSized() {
+        return maxEntries != null || heapSize != null || offHeapSize != null;
+    }
+
+    protected Factory<ExpiryPolicy> createExpiryPolicyFactory() {
+
+        Long ttlMs = getTtlMs();
+        if (ttlMs == null) {
+            return EternalExpiryPolicy.factoryOf();
+        }
+
+        javax.cache.expiry.Duration duration = new javax.cache.expiry.Duration(TimeUnit.MILLISECONDS, ttlMs);
+        return getExpiry() == CacheGroupExpiry.ACCESSED
+                ? AccessedExpiryPolicy.factoryOf(duration)
+                : CreatedExpiryPolicy.factoryOf(duration);
+    }
+
+    private static boolean isEhcacheAvailable() {
+        try {
+            Class.forName(EHCACHE_CONFIGURATION_CLASS, false, CacheGroupFactory.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    Long getTtlMs() {
+        return ttl != null ? ttl.getDuration().toMillis() : null;
+    }
+
+    CacheGroupExpiry getExpiry() {
+        return expiry != null ? expiry : CacheGroupExpiry.CREATED;
+    }
+
+    Long getMaxEntries() {
+        return maxEntries;
+    }
+
+    Long getHeapBytes() {
+        return heapSize != null ? heapSize.getBytes() : null;
+    }
+
+    Long getOffHeapBytes() {
+        return offHeapSize != null ? offHeapSize.getBytes() : null;
+    }
+
+    @BQConfigProperty("Time to live of the group entries. If not set, the entries do not expire and are only " +
+            "removed via invalidation or eviction.")
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+
+    @BQConfigProperty("Defines when the 'ttl' countdown starts. Can be either 'CREATED' (since the entry was put in " +
+            "cache) or 'ACCESSED' (since the entry was last read or written). The default is 'CREATED'.")
+    public void setExpiry(CacheGroupExpiry expiry) {
+        this.expiry = expiry;
+    }
+
+    @BQConfigProperty("Max number of query results stored on heap for this group. When exceeded, the least " +
+            "recently used entries are evicted. Can't be combined with 'heapSize'. Requires Ehcache.")
+    public void setMaxEntries(Long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @BQConfigProperty("Max amount of heap memory taken by the query results of this group, e.g. '20MB'. Can't be " +
+            "combined with 'maxEntries'. Requires Ehcache.")
+    public void setHeapSize(Bytes heapSize) {
+        this.heapSize = heapSize;
+    }
+
+    @BQConfigProperty("Max amount of off-heap memory taken by the query results of this group, e.g. '512MB'. " +
+            "Off-heap entries are stored outside of the garbage-collected heap in a compact serialized form, and " +
+            "only the most recently used ones are kept on heap (100 by default, or as set by 'maxEntries' or " +
+            "'heapSize'). Requires Ehcache.")
+    public void setOffHeapSize(Bytes offHeapSize) {
+        this.offHeapSize = offHeapSize;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.group;
+
+import org.apache.cayenne.DataRow;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An Ehcache serializer of Cayenne query cache entries, used for the entries stored outside of the Java heap.
+ * Shared cache entries are lists of DataRows (i.e. snapshots, which are turned into objects of the requesting
+ * context on read) with the same columns in every row. Such lists are written in a columnar form, with the column
+ * names stored once per list instead of once per row. Any other values are written using Java serialization.
+ * <p>
+ * Deserialized DataRows get new snapshot versions, same as freshly fetched rows.
+ *
+ * @since 2.0.B1
+ */
+public class CompactQueryResultSerializer implements Serializer<Object> {
+
+    static final byte FORMAT_JAVA = 0;
+    static final byte FORMAT_ROWS = 1;
+
+    private final ClassLoader classLoader;
+
+    public CompactQueryResultSerializer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    static boolean isRowList(Object object) {
+
+        if (!(object instanceof List)) {
+            return false;
+        }
+
+        List<?> list = (List<?>) object;
+        if (list.isEmpty() || !(list.get(0) instanceof DataRow)) {
+            return false;
+        }
+
+        Set<String> columns = ((DataRow) list.get(0)).keySet();
+        for (Object o : list) {
+            if (!(o instanceof DataRow)) {
+                return false;
+            }
+
+            DataRow row = (DataRow) o;
+            if (row.size() != columns.size() || !columns.containsAll(row.keySet())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public ByteBuffer serialize(Object object) throws SerializerException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try {
+            boolean rows = isRowList(object);
+            bytes.write(rows ? FORMAT_ROWS : FORMAT_JAVA);
+
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                if (rows) {
+                    writeRows(out, (List<?>) object);
+                } else {
+                    out.writeObject(object);
+                }
+            }
+        } catch (IOException e) {
+            throw new SerializerException("Error serializing query cache entry", e);
+        }
+
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    @Override
+    public Object read(ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+
+        byte format = binary.get();
+
+        try (ObjectInputStream in = new LoaderObjectInputStream(new ByteBufferInputStream(binary), classLoader)) {
+            return format == FORMAT_ROWS ? readRows(in) : in.readObject();
+        } catch (IOException e) {
+            throw new SerializerException("Error deserializing query cache entry", e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object object, ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+        return object.equals(read(binary));
+    }
+
+    private void writeRows(ObjectOutputStream out, List<?> rows) throws IOException {
+
+        String[] columns = ((DataRow) rows.get(0)).keySet().toArray(new String[0]);
+
+        out.writeInt(columns.length);
+        for (String c : columns) {
+            out.writeUTF(c);
+        }
+
+        out.writeInt(rows.size());
+        for (Object o : rows) {
+            DataRow row = (DataRow) o;
+
+            // repeating entity names are written as back references by ObjectOutputStream
+            out.writeObject(row.getEntityName());
+            for (String c : columns) {
+                out.writeObject(row.get(c));
+            }
+        }
+    }
+
+    private List<Object> readRows(ObjectInputStream in) throws IOException, ClassNotFoundException {
+
+        String[] columns = new String[in.readInt()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = in.readUTF();
+        }
+
+        int size = in.readInt();
+        List<Object> rows = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+
+            DataRow row = new DataRow((int) (columns.length / 0.75f) + 1);
+            row.setEntityName((String) in.readObject());
+            for (String c : columns) {
+                row.put(c, in.readObject());
+            }
+
+            rows.add(row);
+        }
+
+        // matching the shared cache entries created by Cayenne
+        return Collections.unmodifiableList(rows);
+    }
+
+    static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+
+    static class LoaderObjectInputStream extends ObjectInputStream {
+
+        private final ClassLoader classLoader;
+
+        LoaderObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, classLoader);
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+}
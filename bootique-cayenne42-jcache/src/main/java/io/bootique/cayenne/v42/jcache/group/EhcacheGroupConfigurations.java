@@ -0,0 +1,117 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.group;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.ValueSupplier;
+import org.ehcache.expiry.Expiry;
+import org.ehcache.impl.serialization.PlainJavaSerializer;
+import org.ehcache.jsr107.Eh107Configuration;
+
+import javax.cache.configuration.Configuration;
+import javax.cache.expiry.ExpiryPolicy;
+
+/**
+ * Creates Ehcache-specific cache group configurations. Isolated in a separate class, so that Ehcache classes are
+ * only loaded when Ehcache is present.
+ */
+class EhcacheGroupConfigurations {
+
+    // Ehcache requires a heap tier in front of off-heap
+    private static final long DEFAULT_HEAP_ENTRIES_WITH_OFF_HEAP = 100;
+
+    static Configuration<Object, Object> create(CacheGroupFactory factory) {
+
+        ResourcePoolsBuilder pools = ResourcePoolsBuilder.newResourcePoolsBuilder();
+
+        if (factory.getMaxEntries() != null) {
+            pools = pools.heap(factory.getMaxEntries(), EntryUnit.ENTRIES);
+        } else if (factory.getHeapBytes() != null) {
+            pools = pools.heap(factory.getHeapBytes(), MemoryUnit.B);
+        } else {
+            pools = pools.heap(DEFAULT_HEAP_ENTRIES_WITH_OFF_HEAP, EntryUnit.ENTRIES);
+        }
+
+        if (factory.getOffHeapBytes() != null) {
+            pools = pools.offheap(factory.getOffHeapBytes(), MemoryUnit.B);
+        }
+
+        CacheConfigurationBuilder<Object, Object> builder = CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, pools)
+                .withExpiry(new ExpiryPolicyAdapter(factory.createExpiryPolicyFactory().create()));
+
+        // with untyped caches Ehcache can't pick the serializers on its own, and off-heap storage requires them
+        if (factory.getOffHeapBytes() != null) {
+            ClassLoader loader = EhcacheGroupConfigurations.class.getClassLoader();
+            builder = builder
+                    .withKeySerializer(new PlainJavaSerializer<>(loader))
+                    .withValueSerializer(new CompactQueryResultSerializer(loader));
+        }
+
+        return Eh107Configuration.fromEhcacheCacheConfiguration(builder);
+    }
+
+    /**
+     * Applies a JCache {@link ExpiryPolicy} to an Ehcache cache, so that both sized and unsized groups share the same
+     * expiration logic.
+     */
+    static class ExpiryPolicyAdapter implements Expiry<Object, Object> {
+
+        private final ExpiryPolicy policy;
+
+        ExpiryPolicyAdapter(ExpiryPolicy policy) {
+            this.policy = policy;
+        }
+
+        @Override
+        public org.ehcache.expiry.Duration getExpiryForCreation(Object key, Object value) {
+            return convert(policy.getExpiryForCreation());
+        }
+
+        @Override
+        public org.ehcache.expiry.Duration getExpiryForAccess(Object key, ValueSupplier<?> value) {
+            return convert(policy.getExpiryForAccess());
+        }
+
+        @Override
+        public org.ehcache.expiry.Duration getExpiryForUpdate(Object key, ValueSupplier<?> oldValue, Object newValue) {
+            return convert(policy.getExpiryForUpdate());
+        }
+
+        // null means "leave the expiration unchanged" in both APIs
+        private static org.ehcache.expiry.Duration convert(javax.cache.expiry.Duration duration) {
+
+            if (duration == null) {
+                return null;
+            }
+
+            if (duration.isEternal()) {
+                return org.ehcache.expiry.Duration.INFINITE;
+            }
+
+            return duration.isZero()
+                    ? org.ehcache.expiry.Duration.ZERO
+                    : new org.ehcache.expiry.Duration(duration.getDurationAmount(), duration.getTimeUnit());
+        }
+    }
+}
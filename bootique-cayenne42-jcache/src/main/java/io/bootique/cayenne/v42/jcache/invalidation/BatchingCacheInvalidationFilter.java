@@ -0,0 +1,167 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.invalidation;
+
+import org.apache.cayenne.DataChannelSyncFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.cache.invalidation.CacheInvalidationFilter;
+import org.apache.cayenne.cache.invalidation.InvalidationHandler;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.di.Provider;
+import org.apache.cayenne.graph.GraphDiff;
+import org.apache.cayenne.query.QueryMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A replacement of the standard Cayenne {@link CacheInvalidationFilter} that doesn't invalidate cache groups on the
+ * commit thread, but rather passes them to {@link InvalidationBatcher}. In "sync" mode the batch with the commit groups
+ * is flushed on the commit thread right after the commit, without waiting for the end of the batch window.
+ *
+ * @since 2.0.B1
+ */
+public class BatchingCacheInvalidationFilter extends CacheInvalidationFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchingCacheInvalidationFilter.class);
+
+    private final InvalidationBatcher batcher;
+    private final boolean sync;
+    private final ThreadLocal<CompletableFuture<Void>> lastBatch;
+
+    public BatchingCacheInvalidationFilter(
+            @Inject Provider<QueryCache> cacheProvider,
+            @Inject List<InvalidationHandler> handlers,
+            @Inject InvalidationBatcher batcher,
+            @Inject InvalidationSettings settings) {
+
+        this(cacheProvider, handlers, batcher, settings, new ThreadLocal<>());
+    }
+
+    private BatchingCacheInvalidationFilter(
+            Provider<QueryCache> cacheProvider,
+            List<InvalidationHandler> handlers,
+            InvalidationBatcher batcher,
+            InvalidationSettings settings,
+            ThreadLocal<CompletableFuture<Void>> lastBatch) {
+
+        super(() -> new BatchingQueryCache(cacheProvider.get(), batcher, lastBatch), handlers);
+        this.batcher = batcher;
+        this.sync = settings.isSync();
+        this.lastBatch = lastBatch;
+    }
+
+    @Override
+    public GraphDiff onSync(
+            ObjectContext originatingContext,
+            GraphDiff changes,
+            int syncType,
+            DataChannelSyncFilterChain filterChain) {
+
+        try {
+            GraphDiff result = super.onSync(originatingContext, changes, syncType, filterChain);
+
+            CompletableFuture<Void> batch = lastBatch.get();
+            if (sync && batch != null) {
+                awaitFlush(batch);
+            }
+
+            return result;
+        } finally {
+            lastBatch.remove();
+        }
+    }
+
+    private void awaitFlush(CompletableFuture<Void> batch) {
+
+        batcher.flush();
+
+        // the batch may have been taken by a concurrent flush on another thread, so still need to wait for it
+        try {
+            batch.join();
+        } catch (CompletionException | CancellationException e) {
+            // the data is already committed, so an invalidation failure must not fail the commit; the batcher has
+            // logged the error already
+            LOGGER.debug("Cache invalidation failed after commit", e);
+        }
+    }
+
+    /**
+     * A QueryCache view given to the superclass, that sends group removals to the batcher.
+     */
+    static class BatchingQueryCache implements QueryCache {
+
+        private final QueryCache delegate;
+        private final InvalidationBatcher batcher;
+        private final ThreadLocal<CompletableFuture<Void>> lastBatch;
+
+        BatchingQueryCache(
+                QueryCache delegate,
+                InvalidationBatcher batcher,
+                ThreadLocal<CompletableFuture<Void>> lastBatch) {
+
+            this.delegate = delegate;
+            this.batcher = batcher;
+            this.lastBatch = lastBatch;
+        }
+
+        @Override
+        public void removeGroup(String groupKey) {
+            lastBatch.set(batcher.add(groupKey, null, null));
+        }
+
+        @Override
+        public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+            lastBatch.set(batcher.add(groupKey, keyType, valueType));
+        }
+
+        @Override
+        public List get(QueryMetadata metadata) {
+            return delegate.get(metadata);
+        }
+
+        @Override
+        public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+            return delegate.get(metadata, factory);
+        }
+
+        @Override
+        public void put(QueryMetadata metadata, List results) {
+            delegate.put(metadata, results);
+        }
+
+        @Override
+        public void remove(String key) {
+            delegate.remove(key);
+        }
+
+        @Deprecated
+        @Override
+        public void clear() {
+            delegate.clear();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.invalidation;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.di.BeforeScopeEnd;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.di.Provider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects cache groups invalidated by commits, and removes them from the {@link QueryCache} in batches, once per
+ * configured time window, on a background thread. A group invalidated by many commits within a window is removed
+ * only once.
+ *
+ * @since 2.0.B1
+ */
+public class InvalidationBatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(InvalidationBatcher.class);
+
+    private final Provider<QueryCache> cacheProvider;
+    private final long windowMs;
+    private final ScheduledExecutorService executor;
+
+    private Batch pending;
+
+    public InvalidationBatcher(@Inject Provider<QueryCache> cacheProvider, @Inject InvalidationSettings settings) {
+        this.cacheProvider = cacheProvider;
+        this.windowMs = settings.getWindowMs();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "bootique-cayenne-invalidation");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Adds a group to the current batch, starting a new batch if needed.
+     *
+     * @return a future that is completed when the batch containing the group is flushed.
+     */
+    public synchronized CompletableFuture<Void> add(String group, Class<?> keyType, Class<?> valueType) {
+
+        if (pending == null) {
+            Batch batch = new Batch();
+            pending = batch;
+            executor.schedule(() -> flush(batch), windowMs, TimeUnit.MILLISECONDS);
+        }
+
+        pending.groups.add(new PendingGroup(group, keyType, valueType));
+        return pending.done;
+    }
+
+    /**
+     * Flushes the current batch on the calling thread, without waiting for the end of its time window.
+     */
+    public void flush() {
+
+        Batch batch;
+        synchronized (this) {
+            batch = pending;
+            pending = null;
+        }
+
+        if (batch != null) {
+            doFlush(batch);
+        }
+    }
+
+    // invoked by the scheduler at the end of the batch window; does nothing if the batch was flushed already
+    void flush(Batch batch) {
+
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+
+            pending = null;
+        }
+
+        doFlush(batch);
+    }
+
+    private void doFlush(Batch batch) {
+        try {
+            QueryCache cache = cacheProvider.get();
+            for (PendingGroup g : batch.groups) {
+                if (g.keyType != null) {
+                    cache.removeGroup(g.name, g.keyType, g.valueType);
+                } else {
+                    cache.removeGroup(g.name);
+                }
+            }
+
+            batch.done.complete(null);
+        } catch (Throwable th) {
+            LOGGER.warn("Error invalidating cache groups {}", batch.groups, th);
+            batch.done.completeExceptionally(th);
+        }
+    }
+
+    @BeforeScopeEnd
+    public void shutdown() {
+        executor.shutdownNow();
+
+        // make sure the groups pending at shutdown are not lost
+        flush();
+    }
+
+    static class Batch {
+        final Set<PendingGroup> groups = new LinkedHashSet<>();
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+    }
+
+    static class PendingGroup {
+
+        final String name;
+        final Class<?> keyType;
+        final Class<?> valueType;
+
+        PendingGroup(String name, Class<?> keyType, Class<?> valueType) {
+            this.name = name;
+            this.keyType = keyType;
+            this.valueType = valueType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof PendingGroup)) {
+                return false;
+            }
+
+            PendingGroup that = (PendingGroup) o;
+            return name.equals(that.name)
+                    && Objects.equals(keyType, that.keyType)
+                    && Objects.equals(valueType, that.valueType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, keyType, valueType);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
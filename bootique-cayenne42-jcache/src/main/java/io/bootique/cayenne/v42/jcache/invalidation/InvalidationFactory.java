@@ -0,0 +1,67 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.invalidation;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+import org.apache.cayenne.cache.invalidation.CacheInvalidationFilter;
+import org.apache.cayenne.di.Module;
+
+/**
+ * @since 2.0.B1
+ */
+@BQConfig("Configures batched invalidation of Cayenne query cache groups on commit")
+public class InvalidationFactory {
+
+    private static final Duration DEFAULT_WINDOW = new Duration("100ms");
+
+    private Duration window;
+    private boolean sync;
+
+    public Module createModule() {
+
+        InvalidationSettings settings = new InvalidationSettings(
+                (window != null ? window : DEFAULT_WINDOW).getDuration().toMillis(),
+                sync);
+
+        return b -> {
+            b.bind(InvalidationSettings.class).toInstance(settings);
+            b.bind(InvalidationBatcher.class).to(InvalidationBatcher.class);
+
+            // replaces the filter contributed by CacheInvalidationModule
+            b.bind(CacheInvalidationFilter.class).to(BatchingCacheInvalidationFilter.class);
+        };
+    }
+
+    @BQConfigProperty("A time window during which invalidated cache groups are collected and deduplicated before " +
+            "being removed from cache in a single batch. The default is 100ms.")
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    @BQConfigProperty("If true, the batch with the commit cache groups is flushed on the committing thread right " +
+            "after the commit, without waiting for the end of the window. This preserves read-your-writes consistency " +
+            "for the committing thread at the cost of commit latency. Invalidation errors are logged and do not fail " +
+            "the commit. The default is 'false'.")
+    public void setSync(boolean sync) {
+        this.sync = sync;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.near;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.di.Module;
+
+/**
+ * @since 2.0.B1
+ */
+@BQConfig("Configures an in-process cache tier in front of the JCache-based Cayenne query cache")
+public class NearCacheFactory {
+
+    private static final int DEFAULT_MAX_ENTRIES = 1000;
+    private static final long DEFAULT_MAX_ROWS = 100_000;
+    private static final Duration DEFAULT_TTL = new Duration("1min");
+
+    private Integer maxEntries;
+    private Long maxRows;
+    private Duration ttl;
+
+    public Module createModule() {
+
+        NearCacheSettings settings = new NearCacheSettings(
+                maxEntries != null ? maxEntries : DEFAULT_MAX_ENTRIES,
+                maxRows != null ? maxRows : DEFAULT_MAX_ROWS,
+                (ttl != null ? ttl : DEFAULT_TTL).getDuration().toNanos());
+
+        return b -> {
+            b.bind(NearCacheSettings.class).toInstance(settings);
+            b.decorate(QueryCache.class).before(NearQueryCache.class);
+        };
+    }
+
+    @BQConfigProperty("Max number of query results stored in the near cache. The default is 1000.")
+    public void setMaxEntries(Integer maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @BQConfigProperty("Max total number of rows in all query results stored in the near cache. Least recently used " +
+            "results are evicted when either this or 'maxEntries' limit is exceeded. The default is 100000.")
+    public void setMaxRows(Long maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    @BQConfigProperty("How long a result is kept in the near cache. Should be shorter than the expiration of the " +
+            "backing JCache, as the near cache only sees invalidations made by this app. The default is 1 min.")
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.near;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.jcache.JCacheConstants;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process cache tier in front of another {@link QueryCache} (normally the JCache-based one). Recently used
+ * query results are kept on heap in a concurrent map bounded by both the number of entries and the total number of
+ * cached rows, and expire after a fixed time-to-live. Reads don't take any locks. When a limit is exceeded, least
+ * recently used results are evicted. All cache removals (including those coming from
+ * {@link org.apache.cayenne.cache.invalidation.InvalidationHandler}) are applied to both tiers, so the near tier is
+ * kept consistent with the commits made by this JVM.
+ *
+ * @since 2.0.B1
+ */
+@SuppressWarnings("rawtypes")
+public class NearQueryCache implements QueryCache {
+
+    private final QueryCache delegate;
+    private final int maxEntries;
+    private final long maxRows;
+    private final long ttlNanos;
+
+    private final ConcurrentMap<String, Entry> entries;
+    private final AtomicLong rows;
+    private final AtomicLong removals;
+    private final Object evictionLock;
+
+    public NearQueryCache(@Inject QueryCache delegate, @Inject NearCacheSettings settings) {
+        this(delegate, settings.getMaxEntries(), settings.getMaxRows(), settings.getTtlNanos());
+    }
+
+    public NearQueryCache(QueryCache delegate, int maxEntries, long maxRows, long ttlNanos) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.maxRows = maxRows;
+        this.ttlNanos = ttlNanos;
+
+        this.entries = new ConcurrentHashMap<>();
+        this.rows = new AtomicLong();
+        this.removals = new AtomicLong();
+        this.evictionLock = new Object();
+    }
+
+    static String cacheGroup(QueryMetadata metadata) {
+        String group = metadata.getCacheGroup();
+        return group != null ? group : JCacheConstants.DEFAULT_CACHE_NAME;
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+
+        String key = metadata.getCacheKey();
+        List near = getNear(key);
+        if (near != null) {
+            return near;
+        }
+
+        long removalsBefore = removals.get();
+        List result = delegate.get(metadata);
+        if (result != null) {
+            putNear(key, cacheGroup(metadata), result, removalsBefore);
+        }
+
+        return result;
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        String key = metadata.getCacheKey();
+        List near = getNear(key);
+        if (near != null) {
+            return near;
+        }
+
+        long removalsBefore = removals.get();
+        List result = delegate.get(metadata, factory);
+        if (result != null) {
+            putNear(key, cacheGroup(metadata), result, removalsBefore);
+        }
+
+        return result;
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        long removalsBefore = removals.get();
+        delegate.put(metadata, results);
+
+        if (results != null) {
+            putNear(metadata.getCacheKey(), cacheGroup(metadata), results, removalsBefore);
+        }
+    }
+
+    // Removals are applied to the delegate first, and only then to the near tier. This way a concurrent reader either
+    // sees the delegate after the removal, or gets its near tier entry removed (by us, or by itself after noticing the
+    // "removals" change).
+
+    @Override
+    public void remove(String key) {
+        delegate.remove(key);
+        removals.incrementAndGet();
+
+        Entry e = entries.get(key);
+        if (e != null) {
+            removeNear(key, e);
+        }
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        delegate.removeGroup(groupKey);
+        removeNearGroup(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        delegate.removeGroup(groupKey, keyType, valueType);
+        removeNearGroup(groupKey);
+    }
+
+    @Deprecated
+    @Override
+    public void clear() {
+        delegate.clear();
+        removals.incrementAndGet();
+        entries.forEach(this::removeNear);
+    }
+
+    /**
+     * Returns the number of entries currently stored in the near tier.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    protected List getNear(String key) {
+
+        if (key == null) {
+            return null;
+        }
+
+        Entry e = entries.get(key);
+        if (e == null) {
+            return null;
+        }
+
+        long now = nanoTime();
+        if (now - e.createdNanos > ttlNanos) {
+            removeNear(key, e);
+            return null;
+        }
+
+        e.accessedNanos = now;
+        return e.result;
+    }
+
+    protected void putNear(String key, String group, List result, long removalsBefore) {
+
+        // results bigger than the whole tier are not worth evicting everything else
+        if (key == null || result.size() > maxRows || removals.get() != removalsBefore) {
+            return;
+        }
+
+        Entry e = new Entry(group, result, nanoTime());
+        Entry old = entries.put(key, e);
+        rows.addAndGet(old != null ? e.rows - old.rows : e.rows);
+
+        // a removal happened while the result was being fetched, so the result may be stale
+        if (removals.get() != removalsBefore) {
+            removeNear(key, e);
+            return;
+        }
+
+        if (entries.size() > maxEntries || rows.get() > maxRows) {
+            evict();
+        }
+    }
+
+    /**
+     * Returns the current time used for TTL and LRU calculations. Overridden in tests.
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private void evict() {
+
+        // eviction only happens on puts (i.e. near tier misses), so a linear LRU scan under a lock is affordable and
+        // keeps the reads lock-free
+        synchronized (evictionLock) {
+            while (entries.size() > maxEntries || rows.get() > maxRows) {
+
+                String lruKey = null;
+                Entry lru = null;
+                for (Map.Entry<String, Entry> candidate : entries.entrySet()) {
+                    Entry e = candidate.getValue();
+                    if (lru == null || e.accessedNanos - lru.accessedNanos < 0) {
+                        lruKey = candidate.getKey();
+                        lru = e;
+                    }
+                }
+
+                if (lru == null) {
+                    return;
+                }
+
+                removeNear(lruKey, lru);
+            }
+        }
+    }
+
+    private void removeNearGroup(String group) {
+        removals.incrementAndGet();
+        entries.forEach((k, e) -> {
+            if (group.equals(e.group)) {
+                removeNear(k, e);
+            }
+        });
+    }
+
+    private void removeNear(String key, Entry e) {
+        if (entries.remove(key, e)) {
+            rows.addAndGet(-e.rows);
+        }
+    }
+
+    static class Entry {
+
+        final String group;
+        final List result;
+        final int rows;
+        final long createdNanos;
+        volatile long accessedNanos;
+
+        Entry(String group, List result, long createdNanos) {
+            this.group = group;
+            this.result = result;
+            this.rows = result.size();
+            this.createdNanos = createdNanos;
+            this.accessedNanos = createdNanos;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.refresh;
+
+import org.apache.cayenne.di.BeforeScopeEnd;
+import org.apache.cayenne.di.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of background threads running query cache refreshes. At most one refresh per cache key is queued
+ * or running at any given moment. When the queue is full, new refreshes are dropped, and will be requested again on
+ * the next access to the stale entry.
+ *
+ * @since 2.0.B1
+ */
+public class RefreshAheadExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefreshAheadExecutor.class);
+
+    private static final int MAX_QUEUED = 1000;
+
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight;
+
+    public RefreshAheadExecutor(@Inject RefreshAheadSettings settings) {
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                settings.getThreads(),
+                settings.getThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED),
+                r -> {
+                    Thread t = new Thread(r, "bootique-cayenne-refresh-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        this.inFlight = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Schedules a refresh of a given cache key, unless a refresh of this key is already pending.
+     *
+     * @return whether the refresh was scheduled.
+     */
+    public boolean submit(String key, Runnable refresh) {
+
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, done) != null) {
+            return false;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh.run();
+                } catch (Throwable th) {
+                    LOGGER.warn("Error refreshing query cache entry '{}'", key, th);
+                } finally {
+                    inFlight.remove(key, done);
+                    done.complete(null);
+                }
+            });
+
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key, done);
+            done.complete(null);
+            return false;
+        }
+    }
+
+    /**
+     * Returns a future that completes when all the refreshes currently queued or running are finished.
+     */
+    CompletableFuture<Void> pending() {
+        return CompletableFuture.allOf(inFlight.values().toArray(new CompletableFuture[0]));
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    @BeforeScopeEnd
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.refresh;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.configuration.server.ServerModule;
+import org.apache.cayenne.di.Module;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @since 2.0.B1
+ */
+@BQConfig("Configures background refresh of shared query cache entries before they expire")
+public class RefreshAheadFactory {
+
+    private static final Duration DEFAULT_REFRESH_AFTER = new Duration("1min");
+    private static final int DEFAULT_THREADS = 1;
+
+    private Duration refreshAfter;
+    private Integer threads;
+    private Set<String> groups;
+
+    public Module createModule() {
+
+        RefreshAheadSettings settings = new RefreshAheadSettings(
+                (refreshAfter != null ? refreshAfter : DEFAULT_REFRESH_AFTER).getDuration().toNanos(),
+                threads != null ? threads : DEFAULT_THREADS,
+                groups != null ? new HashSet<>(groups) : Collections.emptySet());
+
+        return b -> {
+            b.bind(RefreshAheadSettings.class).toInstance(settings);
+            b.bind(RefreshAheadExecutor.class).to(RefreshAheadExecutor.class);
+            b.decorate(QueryCache.class).before(RefreshAheadQueryCache.class);
+            ServerModule.contributeDomainQueryFilters(b).add(RefreshAheadQueryFilter.class);
+        };
+    }
+
+    @BQConfigProperty("Age of a cached query result after which the next read of the result triggers its background " +
+            "refresh. Should be shorter than the expiration of the corresponding JCache cache. The default is 1 min.")
+    public void setRefreshAfter(Duration refreshAfter) {
+        this.refreshAfter = refreshAfter;
+    }
+
+    @BQConfigProperty("Number of background threads re-running the queries. The default is 1.")
+    public void setThreads(Integer threads) {
+        this.threads = threads;
+    }
+
+    @BQConfigProperty("Cache groups whose entries should be refreshed ahead of expiration. If omitted, all shared " +
+            "cache groups are refreshed.")
+    public void setGroups(Set<String> groups) {
+        this.groups = groups;
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.refresh;
+
+import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.di.Provider;
+import org.apache.cayenne.jcache.JCacheConstants;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link QueryCache} decorator that refreshes shared cache entries in the background before they expire.
+ * <p>
+ * The decorator remembers when each entry was loaded. When an entry older than the configured "refresh after" interval
+ * is read, the cached result is returned to the caller, and a re-run of the originating query is scheduled on
+ * {@link RefreshAheadExecutor}. The query is taken from the metadata, or from {@link RefreshAheadQueryFilter}. Once
+ * fetched, the new result replaces the old one in the cache. So as long as the entry is accessed more often than it
+ * expires, callers never have to wait for the query to be re-run.
+ * <p>
+ * Only queries with {@link QueryCacheStrategy#SHARED_CACHE} strategy are refreshed, as the results of the local
+ * cache are bound to a specific ObjectContext. Cache removals are passed through as is, and also discard any
+ * refreshes that were in progress when the removal happened, so that commit-based invalidation is never undone by a
+ * refresh with stale data.
+ *
+ * @since 2.0.B1
+ */
+@SuppressWarnings("rawtypes")
+public class RefreshAheadQueryCache implements QueryCache {
+
+    // limits the memory taken by load timestamps of the keys that were long evicted from the underlying cache
+    static final int MAX_TRACKED_KEYS = 10_000;
+
+    // marks the threads re-running the queries on behalf of this cache
+    private static final ThreadLocal<Boolean> REFRESHING = new ThreadLocal<>();
+
+    private final QueryCache delegate;
+    private final Provider<DataDomain> domainProvider;
+    private final RefreshAheadExecutor executor;
+    private final long refreshAfterNanos;
+    private final Set<String> groups;
+
+    private final ConcurrentMap<String, Loaded> loaded;
+    private final AtomicLong removals;
+
+    public RefreshAheadQueryCache(
+            @Inject QueryCache delegate,
+            @Inject Provider<DataDomain> domainProvider,
+            @Inject RefreshAheadExecutor executor,
+            @Inject RefreshAheadSettings settings) {
+
+        this.delegate = delegate;
+        this.domainProvider = domainProvider;
+        this.executor = executor;
+        this.refreshAfterNanos = settings.getRefreshAfterNanos();
+        this.groups = settings.getGroups();
+
+        this.loaded = new ConcurrentHashMap<>();
+        this.removals = new AtomicLong();
+    }
+
+    static String cacheGroup(QueryMetadata metadata) {
+        String group = metadata.getCacheGroup();
+        return group != null ? group : JCacheConstants.DEFAULT_CACHE_NAME;
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+        return delegate.get(metadata);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        if (!isRefreshable(metadata)) {
+            return delegate.get(metadata, factory);
+        }
+
+        String key = metadata.getCacheKey();
+        String group = cacheGroup(metadata);
+
+        if (REFRESHING.get() != null) {
+            return refresh(metadata, key, group, factory);
+        }
+
+        long removalsBefore = removals.get();
+        boolean[] fetched = new boolean[1];
+
+        List result = delegate.get(metadata, () -> {
+            fetched[0] = true;
+            return factory.createObject();
+        });
+
+        if (fetched[0]) {
+            markLoaded(key, group, removalsBefore);
+        } else if (result != null && isStale(key, group)) {
+            scheduleRefresh(key, originatingQuery(metadata));
+        }
+
+        return result;
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        long removalsBefore = removals.get();
+        delegate.put(metadata, results);
+
+        if (results != null && isRefreshable(metadata)) {
+            markLoaded(metadata.getCacheKey(), cacheGroup(metadata), removalsBefore);
+        }
+    }
+
+    // Removals bump the counter before removing from the delegate. So a refresh that stored its result in the
+    // delegate either sees the counter change and undoes its put, or has its result removed by the removal itself.
+
+    @Override
+    public void remove(String key) {
+        removals.incrementAndGet();
+        loaded.remove(key);
+        delegate.remove(key);
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        forgetGroup(groupKey);
+        delegate.removeGroup(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        forgetGroup(groupKey);
+        delegate.removeGroup(groupKey, keyType, valueType);
+    }
+
+    @Deprecated
+    @Override
+    public void clear() {
+        removals.incrementAndGet();
+        loaded.clear();
+        delegate.clear();
+    }
+
+    protected boolean isRefreshable(QueryMetadata metadata) {
+        return metadata.getCacheKey() != null
+                && metadata.getCacheStrategy() == QueryCacheStrategy.SHARED_CACHE
+                && (groups.isEmpty() || groups.contains(cacheGroup(metadata)));
+    }
+
+    protected Query originatingQuery(QueryMetadata metadata) {
+        Query query = metadata.getOriginatingQuery();
+        return query != null ? query : RefreshAheadQueryFilter.currentQuery();
+    }
+
+    protected void scheduleRefresh(String key, Query query) {
+
+        // without the query there's nothing to re-run
+        if (query == null) {
+            return;
+        }
+
+        executor.submit(key, () -> {
+            REFRESHING.set(Boolean.TRUE);
+            try {
+                // a query without a context is resolved by DataDomain down to the data rows, which is exactly what
+                // goes in the shared cache. The query will call back to this cache, where the result is swapped
+                domainProvider.get().onQuery(null, query);
+            } finally {
+                REFRESHING.remove();
+            }
+        });
+    }
+
+    /**
+     * Returns the current time used to calculate the age of the cache entries. Overridden in tests.
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private List refresh(QueryMetadata metadata, String key, String group, QueryCacheEntryFactory factory) {
+
+        long removalsBefore = removals.get();
+        List result = factory.createObject();
+
+        // a removal happened while the query was running, so the result may be stale
+        if (result == null || removals.get() != removalsBefore) {
+            return result;
+        }
+
+        delegate.put(metadata, result);
+
+        // a removal might have slipped in between the check and the "put"
+        if (removals.get() != removalsBefore) {
+            delegate.remove(key);
+            return result;
+        }
+
+        markLoaded(key, group, removalsBefore);
+        return result;
+    }
+
+    private boolean isStale(String key, String group) {
+        Loaded l = loaded.get(key);
+
+        // an entry loaded before this decorator started tracking it (e.g. by another JVM sharing the cache, or
+        // evicted from the tracking map). Its age is unknown, so start counting from now
+        if (l == null) {
+            track(key, new Loaded(group, nanoTime()));
+            return false;
+        }
+
+        return nanoTime() - l.loadedNanos > refreshAfterNanos;
+    }
+
+    private void markLoaded(String key, String group, long removalsBefore) {
+
+        if (removals.get() != removalsBefore) {
+            return;
+        }
+
+        Loaded l = new Loaded(group, nanoTime());
+        track(key, l);
+
+        if (removals.get() != removalsBefore) {
+            loaded.remove(key, l);
+        }
+    }
+
+    private void track(String key, Loaded l) {
+        loaded.put(key, l);
+
+        // trimming the map in bulk to keep the amortized cost low. The order is arbitrary, but the only effect of
+        // dropping a tracked key is that the age of its entry is counted anew
+        if (loaded.size() > MAX_TRACKED_KEYS) {
+            Iterator<String> it = loaded.keySet().iterator();
+            for (int i = loaded.size() - MAX_TRACKED_KEYS * 9 / 10; i > 0 && it.hasNext(); i--) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    private void forgetGroup(String group) {
+        removals.incrementAndGet();
+        loaded.values().removeIf(l -> group.equals(l.group));
+    }
+
+    /**
+     * Returns the number of cache keys whose load time is currently tracked.
+     */
+    public int trackedSize() {
+        return loaded.size();
+    }
+
+    static class Loaded {
+
+        final String group;
+        final long loadedNanos;
+
+        Loaded(String group, long loadedNanos) {
+            this.group = group;
+            this.loadedNanos = loadedNanos;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.refresh;
+
+import org.apache.cayenne.DataChannelQueryFilter;
+import org.apache.cayenne.DataChannelQueryFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.query.Query;
+
+/**
+ * A DataDomain query filter that exposes the query being executed to {@link RefreshAheadQueryCache}. This is needed
+ * as most Cayenne queries do not report themselves as "originating" via their metadata, and the cache has no other
+ * way to find the query to re-run.
+ *
+ * @since 2.0.B1
+ */
+public class RefreshAheadQueryFilter implements DataChannelQueryFilter {
+
+    private static final ThreadLocal<Query> CURRENT_QUERY = new ThreadLocal<>();
+
+    static Query currentQuery() {
+        return CURRENT_QUERY.get();
+    }
+
+    @Override
+    public QueryResponse onQuery(ObjectContext originatingContext, Query query, DataChannelQueryFilterChain filterChain) {
+
+        Query previous = CURRENT_QUERY.get();
+        CURRENT_QUERY.set(query);
+        try {
+            return filterChain.onQuery(originatingContext, query);
+        } finally {
+            if (previous != null) {
+                CURRENT_QUERY.set(previous);
+            } else {
+                CURRENT_QUERY.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Statistics of a single Cayenne query cache group. Hits, misses and puts are counted by {@link StatsQueryCache}.
+ * Evictions are reported by the JCache provider, as JCache API has no eviction events.
+ *
+ * @since 2.0.B1
+ */
+public class CacheGroupStats {
+
+    private final String group;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder puts;
+    private final LongAdder removals;
+    private final LongAdder entriesSinceClear;
+    private volatile long evictionsAtClear;
+    private volatile LongSupplier evictions;
+
+    public CacheGroupStats(String group) {
+        this.group = group;
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.puts = new LongAdder();
+        this.removals = new LongAdder();
+        this.entriesSinceClear = new LongAdder();
+        this.evictions = () -> 0L;
+    }
+
+    void setEvictionsSource(LongSupplier evictions) {
+        this.evictions = evictions;
+        this.evictionsAtClear = evictions.getAsLong();
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordPut() {
+        puts.increment();
+        entriesSinceClear.increment();
+    }
+
+    void recordClear() {
+        removals.increment();
+        entriesSinceClear.reset();
+        evictionsAtClear = evictions.getAsLong();
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns a ratio of hits to all cache reads, or zero if there were no reads.
+     */
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total > 0 ? (double) h / total : 0.;
+    }
+
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    /**
+     * Returns the number of times the group was invalidated.
+     */
+    public long getRemovals() {
+        return removals.sum();
+    }
+
+    /**
+     * Returns the number of entries evicted by the JCache provider, if "cayennejcache.providerStatistics" is enabled
+     * and the provider reports cache statistics, or zero otherwise.
+     */
+    public long getEvictions() {
+        return evictions.getAsLong();
+    }
+
+    /**
+     * Returns an estimated number of entries in the cache group, calculated from puts, group removals and evictions.
+     * Entries expired by the provider or removed by key are not accounted for, so this is an upper bound.
+     */
+    public long getEntryCountEstimate() {
+        long estimate = entriesSinceClear.sum() - (evictions.getAsLong() - evictionsAtClear);
+        return Math.max(0L, estimate);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.stats;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A registry of per-group Cayenne query cache statistics. Injectable from the Bootique runtime, and populated when
+ * "cayennejcache.statistics" is enabled.
+ *
+ * @since 2.0.B1
+ */
+public class QueryCacheStats {
+
+    private final ConcurrentMap<String, CacheGroupStats> groups;
+    private final LongAdder keyRemovals;
+
+    public QueryCacheStats() {
+        this.groups = new ConcurrentHashMap<>();
+        this.keyRemovals = new LongAdder();
+    }
+
+    public CacheGroupStats getGroupStats(String group) {
+        // "get" first, as "computeIfAbsent" locks even if the value is present
+        CacheGroupStats existing = groups.get(group);
+        return existing != null ? existing : groups.computeIfAbsent(group, CacheGroupStats::new);
+    }
+
+    public Collection<CacheGroupStats> getGroupStats() {
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Returns the number of single entry removals requested via
+     * {@link org.apache.cayenne.cache.QueryCache#remove(String)}. A cache key doesn't identify its group, so these
+     * removals are not attributed to any group.
+     */
+    public long getKeyRemovals() {
+        return keyRemovals.sum();
+    }
+
+    void recordKeyRemove() {
+        keyRemovals.increment();
+    }
+
+    boolean hasGroupStats(String group) {
+        return groups.containsKey(group);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.stats;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.jcache.JCacheConstants;
+import org.apache.cayenne.query.QueryMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.CacheManager;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * A decorator of Cayenne {@link QueryCache} that collects per-group statistics in {@link QueryCacheStats}. If
+ * {@link StatsSettings#isProviderStatistics()} is on, also enables JCache provider statistics for each cache group,
+ * so that evictions can be reported.
+ *
+ * @since 2.0.B1
+ */
+public class StatsQueryCache implements QueryCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatsQueryCache.class);
+
+    private final QueryCache delegate;
+    private final QueryCacheStats stats;
+    private final CacheManager cacheManager;
+    private final boolean providerStatistics;
+
+    public StatsQueryCache(
+            @Inject QueryCache delegate,
+            @Inject QueryCacheStats stats,
+            @Inject CacheManager cacheManager,
+            @Inject StatsSettings settings) {
+
+        this.delegate = delegate;
+        this.stats = stats;
+        this.cacheManager = cacheManager;
+        this.providerStatistics = settings.isProviderStatistics();
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+        List result = delegate.get(metadata);
+
+        CacheGroupStats groupStats = groupStats(cacheGroup(metadata));
+        if (result != null) {
+            groupStats.recordHit();
+        } else {
+            groupStats.recordMiss();
+        }
+
+        return result;
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        boolean[] loaded = new boolean[1];
+        List result = delegate.get(metadata, () -> {
+            loaded[0] = true;
+            return factory.createObject();
+        });
+
+        CacheGroupStats groupStats = groupStats(cacheGroup(metadata));
+        if (loaded[0]) {
+            groupStats.recordMiss();
+            groupStats.recordPut();
+        } else {
+            groupStats.recordHit();
+        }
+
+        return result;
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        delegate.put(metadata, results);
+        groupStats(cacheGroup(metadata)).recordPut();
+    }
+
+    @Override
+    public void remove(String key) {
+        delegate.remove(key);
+
+        // the key doesn't tell us the group, and finding it would take a lookup in every group cache, so the removal
+        // is counted globally
+        if (key != null) {
+            stats.recordKeyRemove();
+        }
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        delegate.removeGroup(groupKey);
+        recordClear(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        delegate.removeGroup(groupKey, keyType, valueType);
+        recordClear(groupKey);
+    }
+
+    @Deprecated
+    @Override
+    public void clear() {
+        delegate.clear();
+        stats.getGroupStats().forEach(CacheGroupStats::recordClear);
+    }
+
+    private void recordClear(String group) {
+        if (stats.hasGroupStats(group)) {
+            stats.getGroupStats(group).recordClear();
+        }
+    }
+
+    protected String cacheGroup(QueryMetadata metadata) {
+        String group = metadata.getCacheGroup();
+        return group != null ? group : JCacheConstants.DEFAULT_CACHE_NAME;
+    }
+
+    protected CacheGroupStats groupStats(String group) {
+
+        if (stats.hasGroupStats(group)) {
+            return stats.getGroupStats(group);
+        }
+
+        CacheGroupStats groupStats = stats.getGroupStats(group);
+        if (providerStatistics) {
+            trackProviderEvictions(group, groupStats);
+        }
+
+        return groupStats;
+    }
+
+    /**
+     * Turns on JCache provider statistics for the group and connects the provider eviction counter to the group
+     * stats. Called the first time a group is seen, when the delegate must have already created the JCache cache.
+     */
+    protected void trackProviderEvictions(String group, CacheGroupStats groupStats) {
+
+        try {
+            cacheManager.enableStatistics(group, true);
+        } catch (Exception e) {
+            LOGGER.info("Can't enable statistics for cache group '{}': {}", group, e.getMessage());
+            return;
+        }
+
+        LongSupplier evictions = providerEvictions(group);
+        if (evictions != null) {
+            groupStats.setEvictionsSource(evictions);
+        }
+    }
+
+    protected LongSupplier providerEvictions(String group) {
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName pattern = new ObjectName("javax.cache:type=CacheStatistics,Cache=" + mbeanName(group) + ",*");
+            Set<ObjectName> names = server.queryNames(pattern, null);
+
+            // there may be other CacheManagers in the JVM with the same cache name, so must match on both
+            String cacheManagerName = mbeanName(cacheManager.getURI().toString());
+            ObjectName name = names.stream()
+                    .filter(n -> cacheManagerName.equals(n.getKeyProperty("CacheManager")))
+                    .findFirst()
+                    .orElse(null);
+
+            if (name == null) {
+                LOGGER.info("No statistics MBean found for cache group '{}' of CacheManager '{}'",
+                        group, cacheManager.getURI());
+                return null;
+            }
+
+            return () -> {
+                try {
+                    return ((Number) server.getAttribute(name, "CacheEvictions")).longValue();
+                } catch (Exception e) {
+                    return 0L;
+                }
+            };
+        } catch (Exception e) {
+            LOGGER.info("Eviction statistics are unavailable for cache group '{}': {}", group, e.getMessage());
+            return null;
+        }
+    }
+
+    // this is how JCache providers (e.g. Ehcache) sanitize the names in the statistics MBean ObjectNames
+    static String mbeanName(String name) {
+        return name == null ? "" : name.replaceAll("[,:=\n]", ".");
+    }
+}
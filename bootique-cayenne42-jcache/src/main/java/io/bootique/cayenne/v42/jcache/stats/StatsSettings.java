@@ -0,0 +1,42 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.stats;
+
+/**
+ * A holder of {@link StatsQueryCache} settings, injectable in Cayenne DI.
+ *
+ * @since 2.0.B1
+ */
+public class StatsSettings {
+
+    private final boolean providerStatistics;
+
+    public StatsSettings(boolean providerStatistics) {
+        this.providerStatistics = providerStatistics;
+    }
+
+    /**
+     * Returns whether {@link StatsQueryCache} should turn on JCache provider statistics for each cache group it sees,
+     * so that evictions can be reported.
+     */
+    public boolean isProviderStatistics() {
+        return providerStatistics;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.warmup;
+
+import io.bootique.cayenne.v42.CayenneStartupListener;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a set of named queries in parallel on a bounded pool to fill the query cache once Cayenne runtime is created.
+ * Queries are expected to use a shared cache strategy, otherwise their results are simply discarded. A failing query
+ * is logged and does not prevent the app from starting. By default the runtime creation is blocked until the queries
+ * are done or a timeout expires, unless the warmer is configured to run them in the background.
+ *
+ * @since 2.0.B1
+ */
+public class CacheWarmer implements CayenneStartupListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final Map<String, Query> queries;
+    private final int threads;
+    private final boolean wait;
+    private final long timeoutMs;
+
+    private volatile CompletableFuture<Void> completion;
+
+    public CacheWarmer(Map<String, Query> queries, int threads, boolean wait, long timeoutMs) {
+        this.queries = queries;
+        this.threads = threads;
+        this.wait = wait;
+        this.timeoutMs = timeoutMs;
+        this.completion = CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void onStartup(ServerRuntime runtime) {
+        warmUp(runtime);
+    }
+
+    /**
+     * Starts the queries, optionally waiting for them to finish.
+     *
+     * @return a future completed when all the warm-up queries are done, successfully or not.
+     */
+    public CompletableFuture<Void> warmUp(ServerRuntime runtime) {
+
+        if (queries.isEmpty()) {
+            return completion;
+        }
+
+        ExecutorService executor = createExecutor();
+        CompletableFuture<?>[] futures = queries.entrySet()
+                .stream()
+                .map(e -> CompletableFuture.runAsync(() -> run(runtime, e.getKey(), e.getValue()), executor))
+                .toArray(CompletableFuture[]::new);
+
+        // running threads are allowed to finish their tasks
+        executor.shutdown();
+
+        this.completion = CompletableFuture.allOf(futures);
+
+        if (wait) {
+            await();
+        }
+
+        return completion;
+    }
+
+    /**
+     * Returns a future completed when all the warm-up queries are done.
+     */
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    protected void run(ServerRuntime runtime, String name, Query query) {
+
+        long t0 = System.currentTimeMillis();
+        try {
+            int size = runtime.newContext().performQuery(query).size();
+            LOGGER.info("Cache warm-up query '{}' fetched {} rows in {} ms", name, size, System.currentTimeMillis() - t0);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Cache warm-up query '{}' failed", name, e);
+        }
+    }
+
+    private void await() {
+        try {
+            completion.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("Cache warm-up took longer than {} ms, continuing startup without waiting", timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // individual query failures are logged in 'run'
+        }
+    }
+
+    private ExecutorService createExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.min(threads, queries.size()), r -> {
+            Thread t = new Thread(r, "bootique-cayenne-warmup-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.warmup;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+import org.apache.cayenne.query.Query;
+
+import java.util.Map;
+
+/**
+ * @since 2.0.B1
+ */
+@BQConfig("Configures query cache warm-up on Cayenne startup")
+public class WarmupFactory {
+
+    private static final int DEFAULT_THREADS = 4;
+    private static final Duration DEFAULT_TIMEOUT = new Duration("5min");
+
+    private Integer threads;
+    private Boolean wait;
+    private Duration timeout;
+
+    public CacheWarmer createWarmer(Map<String, Query> queries) {
+        return new CacheWarmer(
+                queries,
+                threads != null ? threads : DEFAULT_THREADS,
+                wait != null ? wait : true,
+                (timeout != null ? timeout : DEFAULT_TIMEOUT).getDuration().toMillis());
+    }
+
+    @BQConfigProperty("Max number of warm-up queries running in parallel. The default is 4.")
+    public void setThreads(Integer threads) {
+        this.threads = threads;
+    }
+
+    @BQConfigProperty("Whether Cayenne runtime creation should block until the warm-up queries finish, so that the " +
+            "app starts with a warm cache. The default is 'true'. If 'false', the queries run in the background.")
+    public void setWait(Boolean wait) {
+        this.wait = wait;
+    }
+
+    @BQConfigProperty("When 'wait' is enabled, max time Cayenne runtime creation waits for the warm-up to finish. " +
+            "The queries that are still running after that continue in the background. The default is 5 min.")
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.group;
+
+import io.bootique.value.Bytes;
+import io.bootique.value.Duration;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.configuration.Configuration;
+import javax.cache.expiry.AccessedExpiryPolicy;
+import javax.cache.expiry.EternalExpiryPolicy;
+import javax.cache.expiry.ExpiryPolicy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheGroupFactoryTest {
+
+    @Test
+    public void testCreateConfiguration_NoLimits() {
+        Configuration<Object, Object> config = new CacheGroupFactory().createConfiguration("g");
+
+        ExpiryPolicy policy = ((CompleteConfiguration<Object, Object>) config).getExpiryPolicyFactory().create();
+        assertTrue(policy instanceof EternalExpiryPolicy);
+    }
+
+    @Test
+    public void testCreateConfiguration_Ttl() {
+        CacheGroupFactory factory = new CacheGroupFactory();
+        factory.setTtl(new Duration("5s"));
+        factory.setExpiry(CacheGroupExpiry.ACCESSED);
+
+        Configuration<Object, Object> config = factory.createConfiguration("g");
+
+        ExpiryPolicy policy = ((CompleteConfiguration<Object, Object>) config).getExpiryPolicyFactory().create();
+        assertTrue(policy instanceof AccessedExpiryPolicy);
+        assertEquals(5000, policy.getExpiryForAccess().getTimeUnit().toMillis(policy.getExpiryForAccess().getDurationAmount()));
+    }
+
+    @Test
+    public void testCreateConfiguration_MaxEntriesAndHeapSize() {
+        CacheGroupFactory factory = new CacheGroupFactory();
+        factory.setMaxEntries(5L);
+        factory.setHeapSize(new Bytes("5MB"));
+
+        assertThrows(IllegalStateException.class, () -> factory.createConfiguration("g"));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.group;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v42.jcache.persistent.Table1;
+import io.bootique.cayenne.v42.junit5.CayenneTester;
+import io.bootique.jdbc.junit5.derby.DerbyTester;
+import io.bootique.junit5.BQApp;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.query.ObjectSelect;
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.expiry.Expiry;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.ExpiryPolicy;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class CacheGroupsIT {
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    static final CayenneTester cayenne = CayenneTester
+            .create()
+            .entities(Table1.class)
+            .deleteBeforeEachTest();
+
+    @BQApp(skipRun = true)
+    static final BQRuntime runtime = Bootique.app("-c", "classpath:bq_cache_groups.yml")
+            .autoLoadModules()
+            .module(db.moduleWithTestDataSource("db"))
+            .module(cayenne.moduleWithTestHooks())
+            .createRuntime();
+
+    private static Cache<Object, Object> cache(String cacheName) {
+
+        // make sure Cayenne stack is started, and the caches are created
+        cayenne.getRuntime();
+
+        Cache<Object, Object> cache = runtime.getInstance(CacheManager.class).getCache(cacheName);
+        assertNotNull(cache, "Cache was not created: " + cacheName);
+        return cache;
+    }
+
+    private static CacheRuntimeConfiguration<?, ?> ehcacheConfig(String cacheName) {
+        Eh107Configuration<?, ?> config = cache(cacheName).getConfiguration(Eh107Configuration.class);
+        return config.unwrap(CacheRuntimeConfiguration.class);
+    }
+
+    private static ResourcePools resourcePools(String cacheName) {
+        return ehcacheConfig(cacheName).getResourcePools();
+    }
+
+    @Test
+    public void testMaxEntries() {
+        ResourcePools pools = resourcePools("groups_small");
+        assertEquals(2, pools.getPoolForResource(ResourceType.Core.HEAP).getSize());
+        assertNull(pools.getPoolForResource(ResourceType.Core.OFFHEAP));
+    }
+
+    @Test
+    public void testTtl() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table1> q = ObjectSelect.query(Table1.class).sharedCache("groups_ttl");
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(1).insert(45);
+        assertEquals(2, q.select(context).size());
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(2);
+        assertEquals(2, q.select(context).size());
+
+        // checking the policy instead of waiting for the entry to expire
+        CompleteConfiguration<?, ?> config = cache("groups_ttl").getConfiguration(CompleteConfiguration.class);
+        ExpiryPolicy policy = config.getExpiryPolicyFactory().create();
+
+        assertEquals(new Duration(TimeUnit.MILLISECONDS, 100), policy.getExpiryForCreation());
+        assertNull(policy.getExpiryForAccess());
+    }
+
+    @Test
+    public void testTtl_Sized() {
+        Expiry<Object, Object> expiry = (Expiry<Object, Object>) ehcacheConfig("groups_small").getExpiry();
+        assertEquals(org.ehcache.expiry.Duration.of(3_600_000, TimeUnit.MILLISECONDS), expiry.getExpiryForCreation("k", "v"));
+        assertNull(expiry.getExpiryForAccess("k", () -> "v"));
+    }
+
+    @Test
+    public void testOffHeap() {
+
+        ResourcePools pools = resourcePools("groups_offheap");
+        assertEquals(10, pools.getPoolForResource(ResourceType.Core.HEAP).getSize());
+        assertEquals(2 * 1024 * 1024, pools.getPoolForResource(ResourceType.Core.OFFHEAP).getSize());
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table1> q = ObjectSelect.query(Table1.class).sharedCache("groups_offheap");
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(1).insert(45);
+        assertEquals(2, q.select(context).size());
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(2);
+        assertEquals(2, q.select(context).size());
+    }
+
+    @Test
+    public void testOffHeapOnly() {
+        ResourcePools pools = resourcePools("groups_offheap_only");
+        assertEquals(100, pools.getPoolForResource(ResourceType.Core.HEAP).getSize());
+        assertEquals(1024 * 1024, pools.getPoolForResource(ResourceType.Core.OFFHEAP).getSize());
+    }
+}
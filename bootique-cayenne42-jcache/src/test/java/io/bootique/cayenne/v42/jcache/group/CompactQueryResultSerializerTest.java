@@ -0,0 +1,100 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.group;
+
+import org.apache.cayenne.DataRow;
+import org.ehcache.impl.serialization.PlainJavaSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompactQueryResultSerializerTest {
+
+    private final CompactQueryResultSerializer serializer =
+            new CompactQueryResultSerializer(CompactQueryResultSerializerTest.class.getClassLoader());
+
+    private static DataRow row(String entity, Object id, Object name) {
+        DataRow row = new DataRow(4);
+        row.setEntityName(entity);
+        row.put("ID", id);
+        row.put("NAME", name);
+        return row;
+    }
+
+    @Test
+    public void testRows() throws ClassNotFoundException {
+
+        List<DataRow> rows = Collections.unmodifiableList(Arrays.asList(
+                row("E1", 1, "a"),
+                row("E1", 2, null),
+                row(null, 3, "c")));
+
+        ByteBuffer binary = serializer.serialize(rows);
+        assertEquals(CompactQueryResultSerializer.FORMAT_ROWS, binary.get(0));
+
+        List<?> read = (List<?>) serializer.read(binary);
+        assertEquals(rows, read);
+        assertEquals("E1", ((DataRow) read.get(0)).getEntityName());
+        assertNull(((DataRow) read.get(2)).getEntityName());
+        assertThrows(UnsupportedOperationException.class, () -> read.remove(0));
+    }
+
+    @Test
+    public void testRows_SmallerThanJavaSerialization() {
+
+        List<DataRow> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(row("E1", i, "name" + i));
+        }
+
+        int compact = serializer.serialize(rows).remaining();
+        int java = new PlainJavaSerializer<>(getClass().getClassLoader()).serialize(rows).remaining();
+        assertTrue(compact < java, "Compact form is not smaller: " + compact + " vs. " + java);
+    }
+
+    @Test
+    public void testNotRows() throws ClassNotFoundException {
+
+        DataRow r1 = row("E1", 1, "a");
+        DataRow r2 = new DataRow(2);
+        r2.put("ID", 2);
+
+        List<Object> mixed = new ArrayList<>(Arrays.asList(r1, r2));
+        ByteBuffer binary = serializer.serialize(mixed);
+        assertEquals(CompactQueryResultSerializer.FORMAT_JAVA, binary.get(0));
+        assertEquals(mixed, serializer.read(binary));
+
+        List<Object> empty = new ArrayList<>();
+        assertEquals(empty, serializer.read(serializer.serialize(empty)));
+    }
+
+    @Test
+    public void testEquals() throws ClassNotFoundException {
+        List<DataRow> rows = Collections.singletonList(row("E1", 1, "a"));
+        assertTrue(serializer.equals(rows, serializer.serialize(rows)));
+        assertFalse(serializer.equals(Collections.singletonList(row("E1", 2, "a")), serializer.serialize(rows)));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.invalidation;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v42.jcache.CayenneJCacheModule;
+import io.bootique.cayenne.v42.jcache.persistent.Table1;
+import io.bootique.cayenne.v42.junit5.CayenneTester;
+import io.bootique.jdbc.junit5.derby.DerbyTester;
+import io.bootique.junit5.BQApp;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.cache.invalidation.CacheGroupDescriptor;
+import org.apache.cayenne.cache.invalidation.CacheGroups;
+import org.apache.cayenne.cache.invalidation.InvalidationHandler;
+import org.apache.cayenne.query.ObjectSelect;
+import org.junit.jupiter.api.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@BQTest
+public class BatchingCacheInvalidationIT {
+
+    static final InvalidationHandler invalidationHandler =
+            type -> type.getAnnotation(CacheGroups.class) == null
+                    ? p -> asList(new CacheGroupDescriptor("batched1"))
+                    : null;
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    static final CayenneTester cayenne = CayenneTester
+            .create()
+            .entities(Table1.class)
+            .deleteBeforeEachTest();
+
+    @BQApp(skipRun = true)
+    static final BQRuntime runtime = Bootique.app("-c", "classpath:bq_batched_invalidation.yml")
+            .autoLoadModules()
+            .module(b -> CayenneJCacheModule.extend(b).addInvalidationHandler(invalidationHandler))
+            .module(db.moduleWithTestDataSource("db"))
+            .module(cayenne.moduleWithTestHooks())
+            .createRuntime();
+
+    @Test
+    public void testFilterInstalled() {
+        assertTrue(cayenne.getRuntime().getDataDomain().getSyncFilters()
+                .stream()
+                .anyMatch(f -> f instanceof BatchingCacheInvalidationFilter));
+    }
+
+    @Test
+    public void testInvalidate_Sync() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table1> g1 = ObjectSelect.query(Table1.class).localCache("batched1");
+        ObjectSelect<Table1> g2 = ObjectSelect.query(Table1.class).localCache("batched2");
+
+        assertEquals(0, g1.select(context).size());
+        assertEquals(0, g2.select(context).size());
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(1).insert(2);
+
+        // inserted via SQL... query results are still cached...
+        assertEquals(0, g1.select(context).size());
+        assertEquals(0, g2.select(context).size());
+
+        context.newObject(Table1.class);
+        context.commitChanges();
+
+        // inserted via Cayenne... in "sync" mode "g1" must be refreshed by the time commit returns
+        assertEquals(3, g1.select(context).size());
+        assertEquals(0, g2.select(context).size());
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.invalidation;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class InvalidationBatcherTest {
+
+    @Test
+    public void testAdd_Deduplicated() throws Exception {
+        QueryCache cache = mock(QueryCache.class);
+        InvalidationBatcher batcher = new InvalidationBatcher(() -> cache, new InvalidationSettings(50, false));
+
+        try {
+            CompletableFuture<Void> f1 = batcher.add("g1", null, null);
+            CompletableFuture<Void> f2 = batcher.add("g1", null, null);
+            CompletableFuture<Void> f3 = batcher.add("g2", String.class, List.class);
+
+            // all in the same batch
+            assertSame(f1, f2);
+            assertSame(f1, f3);
+            verifyNoInteractions(cache);
+
+            f1.get(5, TimeUnit.SECONDS);
+            verify(cache, times(1)).removeGroup("g1");
+            verify(cache, times(1)).removeGroup("g2", String.class, List.class);
+
+            // new batch after the flush
+            CompletableFuture<Void> f4 = batcher.add("g1", null, null);
+            assertNotSame(f1, f4);
+            f4.get(5, TimeUnit.SECONDS);
+            verify(cache, times(2)).removeGroup("g1");
+        } finally {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testShutdown_FlushesPending() {
+        QueryCache cache = mock(QueryCache.class);
+        InvalidationBatcher batcher = new InvalidationBatcher(() -> cache, new InvalidationSettings(60_000, false));
+
+        CompletableFuture<Void> f = batcher.add("g1", null, null);
+        batcher.shutdown();
+
+        assertTrue(f.isDone());
+        verify(cache).removeGroup("g1");
+    }
+
+    @Test
+    public void testFlush_Error() {
+        QueryCache cache = mock(QueryCache.class);
+        doThrow(new IllegalStateException("test")).when(cache).removeGroup("g1");
+        InvalidationBatcher batcher = new InvalidationBatcher(() -> cache, new InvalidationSettings(60_000, false));
+
+        try {
+            CompletableFuture<Void> f = batcher.add("g1", null, null);
+            batcher.flush();
+            assertTrue(f.isCompletedExceptionally());
+        } finally {
+            batcher.shutdown();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.near;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v42.jcache.persistent.Table1;
+import io.bootique.cayenne.v42.junit5.CayenneTester;
+import io.bootique.jdbc.junit5.derby.DerbyTester;
+import io.bootique.junit5.BQApp;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.query.ObjectSelect;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.CacheManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class NearQueryCacheIT {
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    static final CayenneTester cayenne = CayenneTester
+            .create()
+            .entities(Table1.class)
+            .deleteBeforeEachTest();
+
+    @BQApp(skipRun = true)
+    static final BQRuntime runtime = Bootique.app("-c", "classpath:bq_near_cache.yml")
+            .autoLoadModules()
+            .module(db.moduleWithTestDataSource("db"))
+            .module(cayenne.moduleWithTestHooks())
+            .createRuntime();
+
+    @Test
+    public void testCacheProvider() {
+        QueryCache cache = cayenne.getRuntime().getInjector().getInstance(QueryCache.class);
+        assertTrue(cache instanceof NearQueryCache, "Unexpected cache type: " + cache.getClass().getName());
+    }
+
+    @Test
+    public void testCachedQueries() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table1> g1 = ObjectSelect.query(Table1.class).sharedCache("near_g1");
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(1).insert(45);
+        assertEquals(2, g1.select(context).size());
+
+        // clearing JCache behind Cayenne back must not affect the results served from the near cache
+        db.getTable(cayenne.getTableName(Table1.class)).insert(2).insert(44);
+        runtime.getInstance(CacheManager.class).getCache("near_g1").clear();
+        assertEquals(2, g1.select(context).size());
+
+        // removal via Cayenne QueryCache must affect both tiers
+        cayenne.getRuntime().getDataDomain().getQueryCache().removeGroup("near_g1");
+        assertEquals(4, g1.select(context).size());
+    }
+}
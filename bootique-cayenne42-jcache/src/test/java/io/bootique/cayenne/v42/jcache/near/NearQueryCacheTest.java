@@ -0,0 +1,196 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.near;
+
+import org.apache.cayenne.cache.MapQueryCache;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.query.QueryMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class NearQueryCacheTest {
+
+    private static QueryMetadata metadata(String key, String group) {
+        QueryMetadata md = mock(QueryMetadata.class);
+        when(md.getCacheKey()).thenReturn(key);
+        when(md.getCacheGroup()).thenReturn(group);
+        return md;
+    }
+
+    @Test
+    public void testGet_ServedFromNearTier() {
+        QueryCache delegate = spy(new MapQueryCache());
+        NearQueryCache cache = new NearQueryCache(delegate, 10, 100, TimeUnit.HOURS.toNanos(1));
+
+        QueryMetadata md = metadata("k1", "g1");
+        List<?> result = singletonList("a");
+
+        assertSame(result, cache.get(md, () -> result));
+        assertSame(result, cache.get(md, () -> fail("must have been cached")));
+        assertSame(result, cache.get(md));
+
+        verify(delegate, times(1)).get(same(md), any());
+    }
+
+    @Test
+    public void testEviction_MaxEntries() {
+        NearQueryCache cache = new TickingCache(new MapQueryCache(), 2, 100, TimeUnit.HOURS.toNanos(1));
+
+        cache.put(metadata("k1", "g1"), singletonList("a"));
+        cache.put(metadata("k2", "g1"), singletonList("b"));
+
+        // "touch" k1, so that k2 becomes least recently used
+        cache.get(metadata("k1", "g1"));
+        cache.put(metadata("k3", "g1"), singletonList("c"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.getNear("k1"));
+        assertNull(cache.getNear("k2"));
+        assertNotNull(cache.getNear("k3"));
+    }
+
+    @Test
+    public void testEviction_MaxRows() {
+        NearQueryCache cache = new NearQueryCache(new MapQueryCache(), 10, 3, TimeUnit.HOURS.toNanos(1));
+
+        cache.put(metadata("k1", "g1"), asList("a", "b"));
+        cache.put(metadata("k2", "g1"), asList("c", "d"));
+        assertEquals(1, cache.size());
+        assertNotNull(cache.getNear("k2"));
+
+        // too big to be cached in the near tier at all
+        cache.put(metadata("k3", "g1"), asList("e", "f", "g", "h"));
+        assertNull(cache.getNear("k3"));
+        assertNotNull(cache.getNear("k2"));
+    }
+
+    @Test
+    public void testTtl() {
+        TickingCache cache = new TickingCache(new MapQueryCache(), 10, 100, 1_000);
+
+        cache.put(metadata("k1", "g1"), singletonList("a"));
+        assertNotNull(cache.getNear("k1"));
+
+        cache.clock.addAndGet(1_000);
+        assertNull(cache.getNear("k1"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRemoveGroup() {
+        QueryCache delegate = mock(QueryCache.class);
+        NearQueryCache cache = new NearQueryCache(delegate, 10, 100, TimeUnit.HOURS.toNanos(1));
+
+        cache.put(metadata("k1", "g1"), singletonList("a"));
+        cache.put(metadata("k2", "g2"), singletonList("b"));
+        cache.put(metadata("k3", null), singletonList("c"));
+
+        cache.removeGroup("g1", String.class, List.class);
+        assertNull(cache.getNear("k1"));
+        assertNotNull(cache.getNear("k2"));
+        assertNotNull(cache.getNear("k3"));
+        verify(delegate).removeGroup("g1", String.class, List.class);
+    }
+
+    @Test
+    public void testGet_NoStaleResultAfterConcurrentRemoval() {
+        NearQueryCache cache = new NearQueryCache(new MapQueryCache(), 10, 100, TimeUnit.HOURS.toNanos(1));
+        QueryMetadata md = metadata("k1", "g1");
+
+        // group invalidated while the query is running - the result may be stale and must not be kept in the near tier
+        cache.get(md, () -> {
+            cache.removeGroup("g1");
+            return singletonList("a");
+        });
+
+        assertNull(cache.getNear("k1"));
+    }
+
+    @Test
+    public void testRemove_InterleavedWithGet() {
+
+        QueryMetadata md = metadata("k1", "g1");
+        NearQueryCache[] cache = new NearQueryCache[1];
+
+        // a reader comes in while the removal is in progress, and still sees the old result in the delegate
+        QueryCache delegate = new MapQueryCache() {
+            @Override
+            public void remove(String key) {
+                assertEquals(singletonList("a"), cache[0].get(md));
+                super.remove(key);
+            }
+        };
+
+        cache[0] = new NearQueryCache(delegate, 10, 100, TimeUnit.HOURS.toNanos(1));
+        cache[0].put(md, singletonList("a"));
+
+        cache[0].remove("k1");
+        assertNull(cache[0].getNear("k1"));
+        assertNull(cache[0].get(md));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testClear_InterleavedWithGet() {
+
+        QueryMetadata md = metadata("k1", "g1");
+        NearQueryCache[] cache = new NearQueryCache[1];
+
+        QueryCache delegate = new MapQueryCache() {
+            @Override
+            public void clear() {
+                assertEquals(singletonList("a"), cache[0].get(md));
+                super.clear();
+            }
+        };
+
+        cache[0] = new NearQueryCache(delegate, 10, 100, TimeUnit.HOURS.toNanos(1));
+        cache[0].put(md, singletonList("a"));
+
+        cache[0].clear();
+        assertNull(cache[0].getNear("k1"));
+        assertEquals(0, cache[0].size());
+    }
+
+    /**
+     * A cache with a deterministic clock that advances by 1ns on every reading.
+     */
+    static class TickingCache extends NearQueryCache {
+
+        final AtomicLong clock = new AtomicLong();
+
+        TickingCache(QueryCache delegate, int maxEntries, long maxRows, long ttlNanos) {
+            super(delegate, maxEntries, maxRows, ttlNanos);
+        }
+
+        @Override
+        long nanoTime() {
+            return clock.incrementAndGet();
+        }
+    }
+}
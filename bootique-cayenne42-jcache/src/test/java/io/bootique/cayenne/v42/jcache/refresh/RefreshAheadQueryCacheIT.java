@@ -0,0 +1,97 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.refresh;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v42.jcache.persistent.Table1;
+import io.bootique.cayenne.v42.junit5.CayenneTester;
+import io.bootique.jdbc.junit5.derby.DerbyTester;
+import io.bootique.junit5.BQApp;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.query.ObjectSelect;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class RefreshAheadQueryCacheIT {
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    static final CayenneTester cayenne = CayenneTester
+            .create()
+            .entities(Table1.class)
+            .deleteBeforeEachTest();
+
+    @BQApp(skipRun = true)
+    static final BQRuntime runtime = Bootique.app("-c", "classpath:bq_refresh_ahead.yml")
+            .autoLoadModules()
+            .module(db.moduleWithTestDataSource("db"))
+            .module(cayenne.moduleWithTestHooks())
+            .createRuntime();
+
+    @Test
+    public void testCacheProvider() {
+        QueryCache cache = cayenne.getRuntime().getInjector().getInstance(QueryCache.class);
+        assertTrue(cache instanceof RefreshAheadQueryCache, "Unexpected cache type: " + cache.getClass().getName());
+    }
+
+    @Test
+    public void testRefreshAhead() throws Exception {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table1> g1 = ObjectSelect.query(Table1.class).sharedCache("refresh_g1");
+        RefreshAheadExecutor executor = cayenne.getRuntime().getInjector().getInstance(RefreshAheadExecutor.class);
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(1).insert(45);
+        assertEquals(2, g1.select(context).size());
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(2).insert(44);
+
+        // with zero "refreshAfter" the entry is already stale. It is still returned to the caller, while the refresh
+        // is running in the background
+        assertEquals(2, g1.select(context).size());
+
+        executor.pending().get(5, TimeUnit.SECONDS);
+        assertEquals(4, g1.select(context).size());
+    }
+
+    @Test
+    public void testInvalidation() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table1> g2 = ObjectSelect.query(Table1.class).sharedCache("refresh_g2");
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(1).insert(45);
+        assertEquals(2, g2.select(context).size());
+
+        db.getTable(cayenne.getTableName(Table1.class)).insert(2);
+        cayenne.getRuntime().getDataDomain().getQueryCache().removeGroup("refresh_g2");
+        assertEquals(3, g2.select(context).size());
+    }
+}
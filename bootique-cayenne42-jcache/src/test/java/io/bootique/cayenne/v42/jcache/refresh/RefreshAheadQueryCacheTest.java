@@ -0,0 +1,154 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.refresh;
+
+import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.cache.MapQueryCache;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.QueryCacheStrategy;
+import org.apache.cayenne.query.QueryMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class RefreshAheadQueryCacheTest {
+
+    private static final long REFRESH_AFTER = TimeUnit.MINUTES.toNanos(1);
+
+    private static QueryMetadata metadata(String key) {
+        QueryMetadata md = mock(QueryMetadata.class);
+        when(md.getCacheKey()).thenReturn(key);
+        when(md.getCacheGroup()).thenReturn("g1");
+        when(md.getCacheStrategy()).thenReturn(QueryCacheStrategy.SHARED_CACHE);
+        when(md.getOriginatingQuery()).thenReturn(mock(Query.class));
+        return md;
+    }
+
+    @Test
+    public void testGet_FreshNotRefreshed() {
+        QueryMetadata md = metadata("k1");
+        TickingCache cache = new TickingCache(md, () -> singletonList("new"));
+
+        assertEquals(singletonList("old"), cache.get(md, () -> singletonList("old")));
+
+        cache.clock.addAndGet(REFRESH_AFTER - 10);
+        assertEquals(singletonList("old"), cache.get(md, () -> fail("must have been cached")));
+        verifyNoInteractions(cache.domain);
+    }
+
+    @Test
+    public void testGet_StaleRefreshed() {
+        QueryMetadata md = metadata("k1");
+        TickingCache cache = new TickingCache(md, () -> singletonList("new"));
+
+        assertEquals(singletonList("old"), cache.get(md, () -> singletonList("old")));
+
+        // the stale result is returned, while the refresh replaces it in the cache
+        cache.clock.addAndGet(REFRESH_AFTER + 1);
+        assertEquals(singletonList("old"), cache.get(md, () -> fail("must have been cached")));
+        verify(cache.domain).onQuery(isNull(), any());
+
+        assertEquals(singletonList("new"), cache.get(md));
+    }
+
+    @Test
+    public void testGet_RemovalDuringRefresh() {
+        QueryMetadata md = metadata("k1");
+        TickingCache[] cache = new TickingCache[1];
+
+        // cache invalidated while the refresh query is running - its result must be discarded
+        cache[0] = new TickingCache(md, () -> {
+            cache[0].removeGroup("g1");
+            return singletonList("new");
+        });
+
+        assertEquals(singletonList("old"), cache[0].get(md, () -> singletonList("old")));
+        cache[0].clock.addAndGet(REFRESH_AFTER + 1);
+        cache[0].get(md, () -> fail("must have been cached"));
+
+        assertNull(cache[0].get(md));
+        assertEquals(0, cache[0].trackedSize());
+    }
+
+    @Test
+    public void testTrackedSize_Bounded() {
+        TickingCache cache = new TickingCache(metadata("k"), () -> singletonList("new"));
+
+        for (int i = 0; i <= RefreshAheadQueryCache.MAX_TRACKED_KEYS; i++) {
+            cache.put(metadata("k" + i), Collections.emptyList());
+        }
+
+        assertTrue(cache.trackedSize() <= RefreshAheadQueryCache.MAX_TRACKED_KEYS);
+    }
+
+    /**
+     * A cache with a manually advanced clock, running the refreshes on the calling thread.
+     */
+    static class TickingCache extends RefreshAheadQueryCache {
+
+        final AtomicLong clock = new AtomicLong();
+        final DataDomain domain;
+
+        TickingCache(QueryMetadata md, Supplier<List<?>> refreshResult) {
+            this(mock(DataDomain.class), md, refreshResult);
+        }
+
+        private TickingCache(DataDomain domain, QueryMetadata md, Supplier<List<?>> refreshResult) {
+            super(new MapQueryCache(),
+                    () -> domain,
+                    new InlineExecutor(),
+                    new RefreshAheadSettings(REFRESH_AFTER, 1, Collections.emptySet()));
+
+            this.domain = domain;
+            when(domain.onQuery(isNull(), any())).thenAnswer(i -> {
+                get(md, refreshResult::get);
+                return null;
+            });
+        }
+
+        @Override
+        long nanoTime() {
+            return clock.get();
+        }
+    }
+
+    static class InlineExecutor extends RefreshAheadExecutor {
+
+        InlineExecutor() {
+            super(new RefreshAheadSettings(REFRESH_AFTER, 1, Collections.emptySet()));
+        }
+
+        @Override
+        public boolean submit(String key, Runnable refresh) {
+            refresh.run();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.stats;
+
+import io.bootique.BQRuntime;
+import io.bootique.Bootique;
+import io.bootique.cayenne.v42.jcache.persistent.Table1;
+import io.bootique.cayenne.v42.junit5.CayenneTester;
+import io.bootique.jcache.JCacheModule;
+import io.bootique.jdbc.junit5.derby.DerbyTester;
+import io.bootique.junit5.BQApp;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.query.ObjectSelect;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class StatsQueryCacheIT {
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    static final CayenneTester cayenne = CayenneTester
+            .create()
+            .entities(Table1.class)
+            .deleteBeforeEachTest();
+
+    @BQApp(skipRun = true)
+    static final BQRuntime runtime = Bootique.app("-c", "classpath:bq_cache_stats.yml")
+            .autoLoadModules()
+            .module(b -> JCacheModule.extend(b).setConfiguration("stats_small", Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(
+                            Object.class,
+                            Object.class,
+                            ResourcePoolsBuilder.heap(2)))))
+            .module(db.moduleWithTestDataSource("db"))
+            .module(cayenne.moduleWithTestHooks())
+            .createRuntime();
+
+    @Test
+    public void testHitsMisses() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table1> q = ObjectSelect.query(Table1.class).sharedCache("stats_g1");
+
+        q.select(context);
+        q.select(context);
+        q.select(context);
+
+        CacheGroupStats stats = runtime.getInstance(QueryCacheStats.class).getGroupStats("stats_g1");
+        assertEquals(1, stats.getMisses());
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getPuts());
+        assertEquals(1, stats.getEntryCountEstimate());
+
+        cayenne.getRuntime().getDataDomain().getQueryCache().removeGroup("stats_g1");
+        assertEquals(1, stats.getRemovals());
+        assertEquals(0, stats.getEntryCountEstimate());
+    }
+
+    @Test
+    public void testRemoveKey() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        ObjectSelect<Table1> q1 = ObjectSelect.query(Table1.class)
+                .where(ExpressionFactory.matchDbExp("id", 1))
+                .sharedCache("stats_g2");
+        ObjectSelect<Table1> q2 = ObjectSelect.query(Table1.class)
+                .where(ExpressionFactory.matchDbExp("id", 2))
+                .sharedCache("stats_g2");
+
+        q1.select(context);
+        q2.select(context);
+
+        QueryCacheStats allStats = runtime.getInstance(QueryCacheStats.class);
+        CacheGroupStats stats = allStats.getGroupStats("stats_g2");
+        assertEquals(2, stats.getEntryCountEstimate());
+
+        String key = q1.getMetaData(context.getEntityResolver()).getCacheKey();
+        QueryCache cache = cayenne.getRuntime().getDataDomain().getQueryCache();
+
+        long removals = allStats.getKeyRemovals();
+        cache.remove(key);
+        assertEquals(removals + 1, allStats.getKeyRemovals());
+
+        // the group of the key is unknown, so the estimate stays an upper bound
+        assertEquals(2, stats.getEntryCountEstimate());
+        assertEquals(0, stats.getRemovals());
+
+        // the removed entry is re-fetched
+        q1.select(context);
+        assertEquals(3, stats.getMisses());
+    }
+
+    @Test
+    public void testEvictions() {
+
+        ObjectContext context = cayenne.getRuntime().newContext();
+        for (int i = 0; i < 5; i++) {
+            ObjectSelect.query(Table1.class)
+                    .where(ExpressionFactory.matchDbExp("id", i))
+                    .sharedCache("stats_small")
+                    .select(context);
+        }
+
+        CacheGroupStats stats = runtime.getInstance(QueryCacheStats.class).getGroupStats("stats_small");
+        assertEquals(5, stats.getMisses());
+        assertEquals(5, stats.getPuts());
+
+        // the cache can hold only 2 entries
+        assertTrue(stats.getEvictions() > 0, "No evictions reported");
+        assertTrue(stats.getEntryCountEstimate() <= 2, "Unexpected entry count: " + stats.getEntryCountEstimate());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.jcache.warmup;
+
+import io.bootique.BQRuntime;
+import io.bootique.cayenne.v42.jcache.CayenneJCacheModule;
+import io.bootique.jdbc.junit5.derby.DerbyTester;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.SQLSelect;
+import org.junit.jupiter.api.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class CacheWarmerIT {
+
+    @BQTestTool
+    static final DerbyTester db = DerbyTester.db();
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    @Test
+    public void testWarmup() {
+
+        BQRuntime runtime = createRuntime("classpath:bq_warmup.yml");
+
+        // the warm-up is started by Cayenne runtime creation, not by the app startup
+        CacheWarmer warmer = runtime.getInstance(CacheWarmer.class);
+        assertTrue(warmer.getCompletion().isDone());
+        runtime.getInstance(ServerRuntime.class);
+
+        // since the warm-up waits by default, the queries must be done once the runtime is created. The failing
+        // query must not prevent the startup
+        assertTrue(warmer.getCompletion().isDone());
+
+        CacheManager cacheManager = runtime.getInstance(CacheManager.class);
+        assertTrue(hasEntries(cacheManager.getCache("warmup_g1")));
+        assertTrue(hasEntries(cacheManager.getCache("warmup_g2")));
+    }
+
+    @Test
+    public void testWarmup_NoWait() throws Exception {
+
+        BQRuntime runtime = createRuntime("classpath:bq_warmup_nowait.yml");
+        runtime.getInstance(ServerRuntime.class);
+
+        runtime.getInstance(CacheWarmer.class).getCompletion().get(5, TimeUnit.SECONDS);
+
+        CacheManager cacheManager = runtime.getInstance(CacheManager.class);
+        assertTrue(hasEntries(cacheManager.getCache("warmup_g1")));
+        assertTrue(hasEntries(cacheManager.getCache("warmup_g2")));
+    }
+
+    private BQRuntime createRuntime(String config) {
+        return testFactory.app("-c", config)
+                .autoLoadModules()
+                .module(db.moduleWithTestDataSource("db"))
+                .module(b -> CayenneJCacheModule.extend(b)
+                        .addWarmupQuery("q1", SQLSelect
+                                .dataRowQuery("datamap1", "SELECT 1 AS X FROM SYSIBM.SYSDUMMY1")
+                                .sharedCache("warmup_g1"))
+                        .addWarmupQuery("q2", SQLSelect
+                                .dataRowQuery("datamap1", "SELECT 2 AS X FROM SYSIBM.SYSDUMMY1")
+                                .sharedCache("warmup_g2"))
+                        .addWarmupQuery("failing", SQLSelect
+                                .dataRowQuery("datamap1", "SELECT * FROM NO_SUCH_TABLE")
+                                .sharedCache("warmup_g3")))
+                .createRuntime();
+    }
+
+    private static boolean hasEntries(Cache<Object, Object> cache) {
+        return cache != null && cache.iterator().hasNext();
+    }
+}
@@ -19,12 +19,22 @@
 
 package io.bootique.cayenne.v42;
 
+import io.bootique.cayenne.v42.limit.ConnectionLimitsFactory;
+import io.bootique.cayenne.v42.replica.ReadReplicasConfig;
+import io.bootique.cayenne.v42.replica.ReplicaRoutingDataSource;
 import io.bootique.jdbc.DataSourceFactory;
 import org.apache.cayenne.configuration.DataNodeDescriptor;
 import org.apache.cayenne.configuration.server.DelegatingDataSourceFactory;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
 
 /**
  * @since 1.0.RC1
@@ -35,10 +45,49 @@ public class BQCayenneDataSourceFactory extends DelegatingDataSourceFactory {
 
     private DataSourceFactory bqDataSourceFactory;
     private String defaultDataSourceName;
+    private boolean lazy;
+    private Map<String, ReadReplicasConfig> replicas;
+    private ConnectionLimitsFactory connectionLimits;
+    private ConcurrentMap<String, Semaphore> connectionPermits;
 
     public BQCayenneDataSourceFactory(DataSourceFactory bqDataSourceFactory, String defaultDataSourceName) {
+        this(bqDataSourceFactory, defaultDataSourceName, false);
+    }
+
+    /**
+     * @since 2.0.B1
+     */
+    public BQCayenneDataSourceFactory(DataSourceFactory bqDataSourceFactory, String defaultDataSourceName, boolean lazy) {
+        this(bqDataSourceFactory, defaultDataSourceName, lazy, Collections.emptyMap());
+    }
+
+    /**
+     * @since 2.0.B1
+     */
+    public BQCayenneDataSourceFactory(
+            DataSourceFactory bqDataSourceFactory,
+            String defaultDataSourceName,
+            boolean lazy,
+            Map<String, ReadReplicasConfig> replicas) {
+        this(bqDataSourceFactory, defaultDataSourceName, lazy, replicas, null);
+    }
+
+    /**
+     * @since 2.0.B1
+     */
+    public BQCayenneDataSourceFactory(
+            DataSourceFactory bqDataSourceFactory,
+            String defaultDataSourceName,
+            boolean lazy,
+            Map<String, ReadReplicasConfig> replicas,
+            ConnectionLimitsFactory connectionLimits) {
+
         this.bqDataSourceFactory = bqDataSourceFactory;
         this.defaultDataSourceName = defaultDataSourceName;
+        this.lazy = lazy;
+        this.replicas = replicas != null ? replicas : Collections.emptyMap();
+        this.connectionLimits = connectionLimits;
+        this.connectionPermits = new ConcurrentHashMap<>();
     }
 
     static String encodeDataSourceRef(String bqDataSource) {
@@ -127,11 +176,56 @@ public class BQCayenneDataSourceFactory extends DelegatingDataSourceFactory {
             return null;
         }
 
+        ReadReplicasConfig replicasConfig = replicas.get(datasource);
+        if (replicasConfig != null && !replicasConfig.getDatasources().isEmpty()) {
+
+            List<DataSource> replicaDataSources = new ArrayList<>(replicasConfig.getDatasources().size());
+            for (String replica : replicasConfig.getDatasources()) {
+                replicaDataSources.add(bootiqueDataSource(replica));
+            }
+
+            return new ReplicaRoutingDataSource(
+                    bootiqueDataSource(datasource),
+                    replicaDataSources,
+                    replicasConfig.getStrategy());
+        }
+
+        return bootiqueDataSource(datasource);
+    }
+
+    /**
+     * @since 2.0.B1
+     */
+    protected DataSource bootiqueDataSource(String datasource) {
+
+        // unknown names are resolved eagerly to report config errors on startup
+        if (lazy && bqDataSourceFactory.allNames().contains(datasource)) {
+            // limiting inside the lazy DataSource, as the pool size is only known once the pool is started
+            return new LazyDataSource(datasource, () -> {
+                DataSource ds = bqDataSourceFactory.forName(datasource);
+                return ds != null ? limitedDataSource(datasource, ds) : null;
+            });
+        }
+
         DataSource ds = bqDataSourceFactory.forName(datasource);
         if (ds == null) {
             throw new IllegalStateException("Unknown 'defaultDataSourceName': " + datasource);
         }
 
-        return ds;
+        return limitedDataSource(datasource, ds);
+    }
+
+    /**
+     * @since 2.0.B1
+     */
+    protected DataSource limitedDataSource(String datasource, DataSource ds) {
+
+        if (connectionLimits == null) {
+            return ds;
+        }
+
+        // DataNodes sharing a DataSource must share its permits, as they share the pool
+        Semaphore permits = connectionPermits.computeIfAbsent(datasource, n -> connectionLimits.createPermits(n, ds));
+        return permits != null ? connectionLimits.createDataSource(datasource, ds, permits) : ds;
     }
 }
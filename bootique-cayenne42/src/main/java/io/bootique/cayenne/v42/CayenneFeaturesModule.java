@@ -0,0 +1,94 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42;
+
+import io.bootique.cayenne.v42.listener.AsyncListenerDispatcher;
+import io.bootique.cayenne.v42.metrics.JfrEventsSupport;
+import io.bootique.cayenne.v42.metrics.QueryMetrics;
+import io.bootique.cayenne.v42.metrics.QueryMetricsFilter;
+import io.bootique.cayenne.v42.snapshot.SnapshotCacheStats;
+import io.bootique.log.BootLogger;
+import org.apache.cayenne.configuration.server.ServerModule;
+import org.apache.cayenne.di.Binder;
+import org.apache.cayenne.di.Module;
+
+import javax.inject.Inject;
+import java.util.Set;
+
+/**
+ * A Cayenne DI module contributed by {@link CayenneModule} that installs the optional features enabled in
+ * {@link ServerRuntimeFactory} configuration, which depend on the objects from Bootique DI (metrics, stats, etc.).
+ *
+ * @since 2.0.B1
+ */
+class CayenneFeaturesModule implements Module {
+
+    private final ServerRuntimeFactory serverRuntimeFactory;
+    private final QueryMetrics queryMetrics;
+    private final SnapshotCacheStats snapshotCacheStats;
+    private final BootLogger bootLogger;
+    private final Set<CayenneStartupListener> startupListeners;
+    private final AsyncListenerDispatcher listenerDispatcher;
+    private final RuntimeShutdownHooks shutdownHooks;
+
+    @Inject
+    CayenneFeaturesModule(
+            ServerRuntimeFactory serverRuntimeFactory,
+            QueryMetrics queryMetrics,
+            SnapshotCacheStats snapshotCacheStats,
+            BootLogger bootLogger,
+            Set<CayenneStartupListener> startupListeners,
+            AsyncListenerDispatcher listenerDispatcher,
+            RuntimeShutdownHooks shutdownHooks) {
+
+        this.serverRuntimeFactory = serverRuntimeFactory;
+        this.queryMetrics = queryMetrics;
+        this.snapshotCacheStats = snapshotCacheStats;
+        this.bootLogger = bootLogger;
+        this.startupListeners = startupListeners;
+        this.listenerDispatcher = listenerDispatcher;
+        this.shutdownHooks = shutdownHooks;
+    }
+
+    @Override
+    public void configure(Binder binder) {
+
+        // passed to Cayenne DI, so that CayenneModule can find them without extra provider method arguments
+        binder.bindList(CayenneStartupListener.class).addAll(startupListeners);
+        binder.bind(AsyncListenerDispatcher.class).toInstance(listenerDispatcher);
+        binder.bind(RuntimeShutdownHooks.class).toInstance(shutdownHooks);
+
+        if (serverRuntimeFactory.isQueryMetrics()) {
+            ServerModule.contributeDomainQueryFilters(binder).add(new QueryMetricsFilter(queryMetrics));
+        }
+
+        if (serverRuntimeFactory.isJfrEvents()) {
+            if (JfrEventsSupport.isAvailable()) {
+                JfrEventsSupport.createModule().configure(binder);
+            } else {
+                bootLogger.stderr("JFR API is not available in this JVM, ignoring 'cayenne.jfrEvents'");
+            }
+        }
+
+        if (serverRuntimeFactory.getSnapshotCache() != null) {
+            serverRuntimeFactory.getSnapshotCache().createModule(snapshotCacheStats).configure(binder);
+        }
+    }
+}
@@ -21,7 +21,15 @@ package io.bootique.cayenne.v42;
 
 import io.bootique.ConfigModule;
 import io.bootique.cayenne.v42.annotation.CayenneConfigs;
+import io.bootique.cayenne.v42.async.AsyncQueries;
 import io.bootique.cayenne.v42.annotation.CayenneListener;
+import io.bootique.cayenne.v42.listener.AsyncListenerDispatcher;
+import io.bootique.cayenne.v42.listener.AsyncListeners;
+import io.bootique.cayenne.v42.metrics.CommitMetrics;
+import io.bootique.cayenne.v42.metrics.QueryMetrics;
+import io.bootique.cayenne.v42.snapshot.SnapshotCacheStats;
+import io.bootique.cayenne.v42.startup.StartupTimings;
+import io.bootique.cayenne.v42.stream.QueryStreams;
 import io.bootique.config.ConfigurationFactory;
 import io.bootique.di.Binder;
 import io.bootique.di.Provides;
@@ -33,12 +41,15 @@ import org.apache.cayenne.DataChannelSyncFilter;
 import org.apache.cayenne.access.DataDomain;
 import org.apache.cayenne.configuration.server.ServerModule;
 import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.di.AdhocObjectFactory;
+import org.apache.cayenne.di.Key;
 import org.apache.cayenne.di.ListBuilder;
 import org.apache.cayenne.di.Module;
 
 import javax.inject.Singleton;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -64,7 +75,7 @@ public class CayenneModule extends ConfigModule {
 
     @Override
     public void configure(Binder binder) {
-        extend(binder).initAllExtensions();
+        extend(binder).initAllExtensions().addModule(CayenneFeaturesModule.class);
     }
 
     @Provides
@@ -79,6 +90,81 @@ public class CayenneModule extends ConfigModule {
         return config(ServerRuntimeFactory.class, configFactory);
     }
 
+    @Provides
+    @Singleton
+    QueryMetrics provideQueryMetrics() {
+        return new QueryMetrics();
+    }
+
+    @Provides
+    @Singleton
+    CommitMetrics provideCommitMetrics() {
+        return new CommitMetrics();
+    }
+
+    @Provides
+    @Singleton
+    SnapshotCacheStats provideSnapshotCacheStats() {
+        return new SnapshotCacheStats();
+    }
+
+    /**
+     * @since 2.0.B1
+     */
+    @Provides
+    @Singleton
+    AsyncListenerDispatcher provideAsyncListenerDispatcher(ServerRuntimeFactory serverRuntimeFactory) {
+        return serverRuntimeFactory.getAsyncListeners() != null
+                ? serverRuntimeFactory.getAsyncListeners().createDispatcher()
+                : AsyncListenerDispatcher.disabled();
+    }
+
+    @Provides
+    @Singleton
+    StartupTimings provideStartupTimings(ServerRuntime runtime) {
+        return runtime.getInjector().getInstance(StartupTimings.class);
+    }
+
+    /**
+     * @since 2.0.B1
+     */
+    @Provides
+    @Singleton
+    RuntimeShutdownHooks provideRuntimeShutdownHooks() {
+        return new RuntimeShutdownHooks();
+    }
+
+    /**
+     * @since 2.0.B1
+     */
+    @Provides
+    @Singleton
+    AsyncQueries provideAsyncQueries(
+            ServerRuntimeFactory serverRuntimeFactory,
+            ServerRuntime runtime,
+            BootLogger bootLogger,
+            RuntimeShutdownHooks shutdownHooks) {
+
+        AsyncQueries asyncQueries = serverRuntimeFactory.getAsync().createAsyncQueries(runtime);
+
+        // queued queries need the runtime, so they are drained before the runtime shutdown
+        shutdownHooks.addHook(() -> {
+            bootLogger.trace(() -> "shutting down Cayenne async executors...");
+            asyncQueries.shutdown();
+        });
+
+        return asyncQueries;
+    }
+
+    /**
+     * @since 2.0.B1
+     */
+    @Provides
+    @Singleton
+    QueryStreams provideQueryStreams(ServerRuntimeFactory serverRuntimeFactory) {
+        return new QueryStreams(serverRuntimeFactory.getStreamFetchSize());
+    }
+
     @Provides
     @Singleton
     protected ServerRuntime createCayenneRuntime(
@@ -98,9 +184,22 @@ public class CayenneModule extends ConfigModule {
                 dataSourceFactory,
                 configMerger,
                 extras,
-                injectedCayenneConfigs);
+                injectedCayenneConfigs,
+                serverRuntimeFactory.createStartupTimings(bootLogger));
+
+        // the dispatcher and the hooks are bound in Cayenne DI by CayenneFeaturesModule. Async listener callbacks and
+        // the hooks may still need the runtime, so they are run before the runtime shutdown
+        AsyncListenerDispatcher listenerDispatcher = runtime.getInjector().getInstance(AsyncListenerDispatcher.class);
+        RuntimeShutdownHooks shutdownHooks = runtime.getInjector().getInstance(RuntimeShutdownHooks.class);
 
         shutdownManager.addShutdownHook(() -> {
+            shutdownHooks.run();
+
+            if (listenerDispatcher.isEnabled()) {
+                bootLogger.trace(() -> "shutting down Cayenne async listeners...");
+                listenerDispatcher.shutdown();
+            }
+
             bootLogger.trace(() -> "shutting down Cayenne...");
             runtime.shutdown();
         });
@@ -108,9 +207,24 @@ public class CayenneModule extends ConfigModule {
         // TODO: listeners should be really contributable to Cayenne via DI, just like filters...
         if (!listeners.isEmpty()) {
             DataDomain domain = runtime.getDataDomain();
-            listeners.forEach(domain::addListener);
+            StartupTimings startupTimings = runtime.getInjector().getInstance(StartupTimings.class);
+            startupTimings.time(StartupTimings.LISTENERS, () -> {
+                if (listenerDispatcher.isEnabled()) {
+                    AsyncListeners asyncListeners = new AsyncListeners(
+                            listenerDispatcher,
+                            runtime.getInjector().getInstance(AdhocObjectFactory.class));
+                    listeners.forEach(l -> asyncListeners.addListener(domain, l));
+                } else {
+                    listeners.forEach(domain::addListener);
+                }
+            });
         }
 
+        // the listeners are bound in Cayenne DI by CayenneFeaturesModule
+        List<CayenneStartupListener> startupListeners = runtime.getInjector()
+                .getInstance(Key.getListOf(CayenneStartupListener.class));
+        startupListeners.forEach(l -> l.onStartup(runtime));
+
         return runtime;
     }
 
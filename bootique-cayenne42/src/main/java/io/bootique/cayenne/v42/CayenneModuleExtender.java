@@ -39,6 +39,7 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
     private SetBuilder<Object> listeners;
     private SetBuilder<String> projects;
     private SetBuilder<Module> modules;
+    private SetBuilder<CayenneStartupListener> startupListeners;
 
     public CayenneModuleExtender(Binder binder) {
         super(binder);
@@ -51,6 +52,7 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
         contributeSyncFilters();
         contributeModules();
         contributeProjects();
+        contributeStartupListeners();
         return this;
     }
 
@@ -116,6 +118,30 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
         return this;
     }
 
+    /**
+     * @since 2.0.B1
+     */
+    public CayenneModuleExtender addStartupListener(CayenneStartupListener listener) {
+        contributeStartupListeners().addInstance(listener);
+        return this;
+    }
+
+    /**
+     * @since 2.0.B1
+     */
+    public CayenneModuleExtender addStartupListener(Class<? extends CayenneStartupListener> listenerType) {
+        contributeStartupListeners().add(listenerType);
+        return this;
+    }
+
+    /**
+     * @since 2.0.B1
+     */
+    public CayenneModuleExtender addStartupListener(Key<? extends CayenneStartupListener> listenerKey) {
+        contributeStartupListeners().add(listenerKey);
+        return this;
+    }
+
     protected SetBuilder<DataChannelQueryFilter> contributeQueryFilters() {
         return queryFilters != null ? queryFilters : (queryFilters = newSet(DataChannelQueryFilter.class));
     }
@@ -135,4 +161,10 @@ public class CayenneModuleExtender extends ModuleExtender<CayenneModuleExtender>
     protected SetBuilder<Module> contributeModules() {
         return modules != null ? modules : (modules = newSet(Module.class));
     }
+
+    protected SetBuilder<CayenneStartupListener> contributeStartupListeners() {
+        return startupListeners != null
+                ? startupListeners
+                : (startupListeners = newSet(CayenneStartupListener.class));
+    }
 }
@@ -0,0 +1,36 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42;
+
+import org.apache.cayenne.configuration.server.ServerRuntime;
+
+/**
+ * A callback invoked once Cayenne ServerRuntime is created by {@link CayenneModule}, before the runtime is returned to
+ * the caller. Allows to start the tasks that need Cayenne (e.g. cache warm-up) only in the apps that actually use
+ * Cayenne, without forcing the runtime creation on every app start. Contributed via
+ * {@link CayenneModuleExtender#addStartupListener(Class)}.
+ *
+ * @since 2.0.B1
+ */
+@FunctionalInterface
+public interface CayenneStartupListener {
+
+    void onStartup(ServerRuntime runtime);
+}
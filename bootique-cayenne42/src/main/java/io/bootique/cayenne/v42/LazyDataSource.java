@@ -0,0 +1,125 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * A DataSource proxy that resolves its delegate on first access. Allows to defer a connection pool startup until
+ * a DataNode is actually used.
+ *
+ * @since 2.0.B1
+ */
+public class LazyDataSource implements DataSource {
+
+    private final String name;
+    private final Supplier<DataSource> delegateSupplier;
+    private final Lock lock;
+    private volatile DataSource delegate;
+
+    public LazyDataSource(String name, Supplier<DataSource> delegateSupplier) {
+        this.name = name;
+        this.delegateSupplier = delegateSupplier;
+
+        // not using "synchronized" here, as a thread blocked on a monitor would pin a virtual thread carrier
+        this.lock = new ReentrantLock();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isResolved() {
+        return delegate != null;
+    }
+
+    protected DataSource getDelegate() {
+        if (delegate == null) {
+            lock.lock();
+            try {
+                if (delegate == null) {
+                    DataSource ds = delegateSupplier.get();
+                    if (ds == null) {
+                        throw new IllegalStateException("Unknown DataSource: " + name);
+                    }
+
+                    delegate = ds;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        return delegate;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getDelegate().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getDelegate().getConnection(username, password);
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return getDelegate().getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        getDelegate().setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        getDelegate().setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return getDelegate().getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return getDelegate().getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : getDelegate().unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || getDelegate().isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42;
+
+import org.apache.cayenne.configuration.DataChannelDescriptor;
+import org.apache.cayenne.map.DataMap;
+import org.apache.cayenne.resource.URLResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores a fully merged {@link DataChannelDescriptor} in a compact binary file, so that subsequent app starts could
+ * skip XML parsing. A snapshot is only reused if the app configuration that produced it is unchanged and the checksum
+ * of all the source XML resources matches the one stored in the snapshot. Otherwise it is rebuilt from XML and
+ * overwritten. Only Cayenne and JDK classes are deserialized from the snapshot file, and a file referencing any other
+ * class is treated as unreadable.
+ *
+ * @since 2.0.B1
+ */
+public class ModelSnapshot {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ModelSnapshot.class);
+
+    // increment when the file layout changes
+    private static final int FORMAT_VERSION = 1;
+
+    private String location;
+    private final AtomicInteger successfulReads;
+
+    public ModelSnapshot(String location) {
+        this.location = location;
+        this.successfulReads = new AtomicInteger();
+    }
+
+    public boolean isEnabled() {
+        return location != null;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Returns how many times a descriptor was successfully loaded from the snapshot file, bypassing XML.
+     */
+    public int getSuccessfulReads() {
+        return successfulReads.get();
+    }
+
+    /**
+     * Returns a descriptor from the snapshot file, or null if the file is missing, unreadable or stale.
+     *
+     * @param key a string that uniquely identifies app configuration that produced the descriptor.
+     */
+    public DataChannelDescriptor read(String key) {
+
+        Path file = Paths.get(location);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (ObjectInputStream in = new SnapshotInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))))) {
+
+            if (in.readInt() != FORMAT_VERSION || !key.equals(in.readObject())) {
+                return null;
+            }
+
+            @SuppressWarnings("unchecked")
+            Map<String, String> sources = (Map<String, String>) in.readObject();
+            byte[] checksum = (byte[]) in.readObject();
+
+            if (!Arrays.equals(checksum, checksum(sources.values()))) {
+                LOGGER.info("Cayenne model snapshot is stale, will rebuild: {}", location);
+                return null;
+            }
+
+            DataChannelDescriptor descriptor = (DataChannelDescriptor) in.readObject();
+            restoreConfigurationSources(descriptor, sources);
+            successfulReads.incrementAndGet();
+            return descriptor;
+
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // an incompatible or corrupted snapshot is not an error, it will be recreated from XML
+            LOGGER.warn("Ignoring unreadable Cayenne model snapshot: {}", location, e);
+            return null;
+        }
+    }
+
+    /**
+     * Saves the descriptor to the snapshot file. Failures are logged but not rethrown, as a missing snapshot only
+     * affects startup time.
+     *
+     * @param key            a string that uniquely identifies app configuration that produced the descriptor.
+     * @param descriptor     a fully loaded descriptor.
+     * @param projectSources URLs of the project XML files used to build the descriptor. DataMap XML URLs are taken
+     *                       from the descriptor itself.
+     */
+    public void write(String key, DataChannelDescriptor descriptor, Collection<URL> projectSources) {
+
+        // preserving the order, as the checksum is order-sensitive
+        Map<String, String> sources = new LinkedHashMap<>();
+
+        int i = 0;
+        for (URL u : projectSources) {
+            sources.put("project:" + i++, u.toExternalForm());
+        }
+
+        for (DataMap map : descriptor.getDataMaps()) {
+            if (map.getConfigurationSource() != null) {
+                sources.put(map.getName(), map.getConfigurationSource().getURL().toExternalForm());
+            }
+        }
+
+        Path file = Paths.get(location).toAbsolutePath();
+        try {
+            byte[] checksum = checksum(sources.values());
+
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+            try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeObject(key);
+                out.writeObject(sources);
+                out.writeObject(checksum);
+                out.writeObject(descriptor);
+            }
+
+            // replacing atomically, so that concurrently starting apps never see a partially written file
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write Cayenne model snapshot: {}", location, e);
+        }
+    }
+
+    private void restoreConfigurationSources(DataChannelDescriptor descriptor, Map<String, String> sources) throws MalformedURLException {
+
+        // "configurationSource" is transient in Cayenne model objects
+        for (DataMap map : descriptor.getDataMaps()) {
+            String url = sources.get(map.getName());
+            if (url != null) {
+                map.setConfigurationSource(new URLResource(new URL(url)));
+            }
+        }
+    }
+
+    private static byte[] checksum(Collection<String> urls) throws IOException {
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+
+        byte[] buffer = new byte[8192];
+        for (String url : urls) {
+            digest.update(url.getBytes("UTF-8"));
+
+            try (InputStream in = new URL(url).openStream()) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            } catch (FileNotFoundException e) {
+                // a removed source makes the snapshot stale
+                digest.update((byte) 0);
+            }
+        }
+
+        return digest.digest();
+    }
+
+    /**
+     * An ObjectInputStream that refuses to load classes outside of the packages that a descriptor is made of, so that
+     * a tampered snapshot file can't instantiate arbitrary serializable classes.
+     */
+    static class SnapshotInputStream extends ObjectInputStream {
+
+        SnapshotInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        static boolean isAllowed(String className) {
+
+            // arrays are checked by their component type
+            String name = className;
+            while (name.startsWith("[")) {
+                name = name.substring(1);
+            }
+
+            if (name.startsWith("L") && name.endsWith(";")) {
+                name = name.substring(1, name.length() - 1);
+            } else if (name.length() == 1) {
+                // primitive array
+                return className.startsWith("[");
+            }
+
+            return name.startsWith("java.") || name.startsWith("org.apache.cayenne.");
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!isAllowed(desc.getName())) {
+                throw new InvalidClassException(desc.getName(), "Class is not allowed in a Cayenne model snapshot");
+            }
+
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+            for (String i : interfaces) {
+                if (!isAllowed(i)) {
+                    throw new InvalidClassException(i, "Class is not allowed in a Cayenne model snapshot");
+                }
+            }
+
+            return super.resolveProxyClass(interfaces);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Collects the tasks that must run before Cayenne runtime shutdown, such as draining executors of the objects created
+ * after the runtime. Bootique shutdown hooks run in no particular order, so the tasks are run from the runtime shutdown
+ * hook instead of being registered with Bootique directly.
+ *
+ * @since 2.0.B1
+ */
+class RuntimeShutdownHooks {
+
+    private final List<Runnable> hooks;
+
+    RuntimeShutdownHooks() {
+        this.hooks = new CopyOnWriteArrayList<>();
+    }
+
+    void addHook(Runnable hook) {
+        hooks.add(hook);
+    }
+
+    void run() {
+        hooks.forEach(Runnable::run);
+    }
+}
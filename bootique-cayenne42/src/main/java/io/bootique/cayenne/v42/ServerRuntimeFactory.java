@@ -21,14 +21,34 @@ package io.bootique.cayenne.v42;
 
 import io.bootique.annotation.BQConfig;
 import io.bootique.annotation.BQConfigProperty;
+import io.bootique.cayenne.v42.async.AsyncQueriesFactory;
+import io.bootique.cayenne.v42.cache.SingleFlightQueryCache;
+import io.bootique.cayenne.v42.limit.ConnectionLimitsFactory;
+import io.bootique.cayenne.v42.listener.AsyncListenersFactory;
+import io.bootique.cayenne.v42.metrics.CapturingJdbcEventLogger;
+import io.bootique.cayenne.v42.metrics.JfrEventsSupport;
+import io.bootique.cayenne.v42.metrics.QueryMetrics;
+import io.bootique.cayenne.v42.metrics.SlowQueryLogFactory;
+import io.bootique.cayenne.v42.replica.PrimaryOnCommitFilter;
+import io.bootique.cayenne.v42.replica.PrimaryOnUpdateFilter;
+import io.bootique.cayenne.v42.replica.ReadReplicasConfig;
+import io.bootique.cayenne.v42.snapshot.SnapshotCacheFactory;
+import io.bootique.cayenne.v42.snapshot.SnapshotCacheStats;
+import io.bootique.cayenne.v42.startup.ModelWarmup;
+import io.bootique.cayenne.v42.startup.StartupTimings;
 import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.log.BootLogger;
+import io.bootique.value.Duration;
 import org.apache.cayenne.access.DataDomain;
 import org.apache.cayenne.access.dbsync.CreateIfNoSchemaStrategy;
 import org.apache.cayenne.access.dbsync.SchemaUpdateStrategyFactory;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.configuration.server.ServerModule;
 import org.apache.cayenne.configuration.server.ServerRuntime;
 import org.apache.cayenne.configuration.server.ServerRuntimeBuilder;
 import org.apache.cayenne.di.Key;
 import org.apache.cayenne.di.Module;
+import org.apache.cayenne.log.JdbcEventLogger;
 
 import java.util.*;
 
@@ -39,16 +59,33 @@ import java.util.*;
 public class ServerRuntimeFactory {
 
     private static final String DEFAULT_CONFIG = "cayenne-project.xml";
+    private static final int DEFAULT_STREAM_FETCH_SIZE = 1000;
 
     private String name;
     private Collection<String> configs;
     private List<DataMapConfig> maps;
     private String datasource;
     private boolean createSchema;
+    private boolean parallelMapLoading;
+    private String modelSnapshot;
+    private boolean lazyDataSources;
+    private Map<String, ReadReplicasConfig> replicas;
+    private boolean queryMetrics;
+    private boolean jfrEvents;
+    private boolean warmup;
+    private SlowQueryLogFactory slowQueryLog;
+    private boolean coalesceQueries;
+    private Duration coalesceTimeout;
+    private SnapshotCacheFactory snapshotCache;
+    private ConnectionLimitsFactory connectionLimits;
+    private AsyncQueriesFactory async;
+    private Integer streamFetchSize;
+    private AsyncListenersFactory asyncListeners;
 
     public ServerRuntimeFactory() {
         this.configs = new ArrayList<>();
         this.maps = new ArrayList<>();
+        this.replicas = new HashMap<>();
     }
 
     public ServerRuntime createCayenneRuntime(
@@ -57,12 +94,51 @@ public class ServerRuntimeFactory {
             Collection<Module> extraModules,
             Collection<String> extraConfigs) {
 
-        Collection<String> factoryConfigs = configs();
+        return createCayenneRuntime(dataSourceFactory, configMerger, extraModules, extraConfigs, new StartupTimings());
+    }
+
+    /**
+     * Creates startup timings that report each phase to the provided logger, and also emit JFR events if
+     * "jfrEvents" is enabled and the JVM has JFR API.
+     *
+     * @since 2.0.B1
+     */
+    public StartupTimings createStartupTimings(BootLogger logger) {
+        return jfrEvents && JfrEventsSupport.isAvailable()
+                ? JfrEventsSupport.createStartupTimings(logger)
+                : new StartupTimings(logger);
+    }
+
+    /**
+     * Creates Cayenne runtime, recording the time spent in each startup phase.
+     *
+     * @since 2.0.B1
+     */
+    public ServerRuntime createCayenneRuntime(
+            DataSourceFactory dataSourceFactory,
+            CayenneConfigMerger configMerger,
+            Collection<Module> extraModules,
+            Collection<String> extraConfigs,
+            StartupTimings startupTimings) {
 
-        return cayenneBuilder(dataSourceFactory)
-                .addConfigs(configMerger.merge(factoryConfigs, extraConfigs))
+        Collection<String> factoryConfigs = configs();
+        Collection<String> mergedConfigs = startupTimings.time(
+                StartupTimings.CONFIG_MERGE,
+                () -> configMerger.merge(factoryConfigs, extraConfigs));
+
+        // the timings are bound here, and not in the "factoryModule", so that the phases recorded by Cayenne DI
+        // services end up in the caller's instance
+        ServerRuntime runtime = startupTimings.time(StartupTimings.RUNTIME_ASSEMBLY, () -> cayenneBuilder(dataSourceFactory)
+                .addConfigs(mergedConfigs)
                 .addModules(extraModules)
-                .build();
+                .addModule(b -> b.bind(StartupTimings.class).toInstance(startupTimings))
+                .build());
+
+        if (warmup) {
+            startupTimings.time(StartupTimings.MODEL_WARMUP, () -> new ModelWarmup().warmUp(runtime));
+        }
+
+        return runtime;
     }
 
     /**
@@ -86,6 +162,8 @@ public class ServerRuntimeFactory {
             DefaultDataSourceName defaultDataSourceName = defaultDataSourceName(dataSourceFactory);
             binder.bind(Key.get(DefaultDataSourceName.class)).toInstance(defaultDataSourceName);
             binder.bindList(DataMapConfig.class).addAll(maps);
+            binder.bind(Key.get(DataMapLoadingMode.class)).toInstance(new DataMapLoadingMode(parallelMapLoading));
+            binder.bind(Key.get(ModelSnapshot.class)).toInstance(new ModelSnapshot(modelSnapshot));
 
             // provide default DataNode
             // TODO: copied from Cayenne, as the corresponding provider is not public or rather
@@ -93,8 +171,33 @@ public class ServerRuntimeFactory {
             binder.bind(DataDomain.class).toProvider(SyntheticNodeDataDomainProvider.class);
 
             // Bootique DataSource hooks...
-            BQCayenneDataSourceFactory bqCayenneDSFactory = new BQCayenneDataSourceFactory(dataSourceFactory, datasource);
+            BQCayenneDataSourceFactory bqCayenneDSFactory = new BQCayenneDataSourceFactory(
+                    dataSourceFactory,
+                    datasource,
+                    lazyDataSources,
+                    replicas,
+                    connectionLimits);
             binder.bind(org.apache.cayenne.configuration.server.DataSourceFactory.class).toInstance(bqCayenneDSFactory);
+
+            // commits and non-select queries must go to the primary DataSource
+            if (replicas != null && !replicas.isEmpty()) {
+                ServerModule.contributeDomainSyncFilters(binder).add(new PrimaryOnCommitFilter());
+                ServerModule.contributeDomainQueryFilters(binder).add(new PrimaryOnUpdateFilter());
+            }
+
+            if (slowQueryLog != null) {
+                binder.decorate(JdbcEventLogger.class).before(CapturingJdbcEventLogger.class);
+                ServerModule.contributeDomainQueryFilters(binder).add(slowQueryLog.createFilter());
+            }
+
+            if (coalesceQueries) {
+                if (coalesceTimeout != null) {
+                    ServerModule.contributeProperties(binder).put(
+                            SingleFlightQueryCache.WAIT_TIMEOUT_PROPERTY,
+                            String.valueOf(coalesceTimeout.getDuration().toMillis()));
+                }
+                binder.decorate(QueryCache.class).before(SingleFlightQueryCache.class);
+            }
         };
     }
 
@@ -137,6 +240,30 @@ public class ServerRuntimeFactory {
         return new DefaultDataSourceName(null);
     }
 
+    boolean isQueryMetrics() {
+        return queryMetrics;
+    }
+
+    boolean isJfrEvents() {
+        return jfrEvents;
+    }
+
+    SnapshotCacheFactory getSnapshotCache() {
+        return snapshotCache;
+    }
+
+    int getStreamFetchSize() {
+        return streamFetchSize != null ? streamFetchSize : DEFAULT_STREAM_FETCH_SIZE;
+    }
+
+    AsyncQueriesFactory getAsync() {
+        return async != null ? async : new AsyncQueriesFactory();
+    }
+
+    AsyncListenersFactory getAsyncListeners() {
+        return asyncListeners;
+    }
+
     /**
      * Sets an optional collection of Cayenne projects to load in runtime. If missing, will try to locate a file
      * 'cayenne-project.xml' on classpath.
@@ -194,4 +321,209 @@ public class ServerRuntimeFactory {
     public void setCreateSchema(boolean createSchema) {
         this.createSchema = createSchema;
     }
+
+    /**
+     * Sets a flag that defines whether DataMaps explicitly listed under "maps" should be loaded concurrently. The
+     * default is 'false'. Parallel loading may reduce startup time of the apps with many large DataMaps. The order of
+     * DataMaps in the resulting runtime is the same as with sequential loading.
+     *
+     * @param parallelMapLoading if true, DataMaps will be loaded concurrently on startup.
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("Whether to load DataMaps listed under 'maps' concurrently. The default is 'false'. Parallel " +
+            "loading may reduce startup time of the apps with many large DataMaps.")
+    public void setParallelMapLoading(boolean parallelMapLoading) {
+        this.parallelMapLoading = parallelMapLoading;
+    }
+
+    /**
+     * Sets an optional path of a binary file that caches the merged Cayenne model between app restarts. When set, the
+     * model is loaded from this file instead of XML, as long as the checksum of the source XML files matches the one
+     * stored in the file. Otherwise it is loaded from XML and the file is (re)written.
+     *
+     * @param modelSnapshot a filesystem path of the model snapshot file.
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("An optional path of a binary file that caches the merged Cayenne model between app restarts. " +
+            "If the source XML files are unchanged, the model is loaded from this file, skipping XML parsing. " +
+            "Otherwise the model is loaded from XML, and the file is rewritten.")
+    public void setModelSnapshot(String modelSnapshot) {
+        this.modelSnapshot = modelSnapshot;
+    }
+
+    /**
+     * Sets a flag that defines whether Bootique DataSources mapped to Cayenne DataNodes should be started lazily, on
+     * first connection request. The default is 'false'. Lazy mode ensures that connection pools are only started for
+     * the DataNodes actually used by the app.
+     *
+     * @param lazyDataSources if true, DataSources are started on first connection request instead of on DataDomain
+     *                        startup.
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("Whether to start DataSources of Cayenne DataNodes lazily, on first connection request. The " +
+            "default is 'false'. Lazy mode ensures that only the pools of the DataNodes actually used are started.")
+    public void setLazyDataSources(boolean lazyDataSources) {
+        this.lazyDataSources = lazyDataSources;
+    }
+
+    /**
+     * Sets read replicas for DataSources used by Cayenne. Keys in the map are the names of the primary DataSources.
+     * SELECT queries on DataNodes mapped to such DataSource are sent to one of the replicas, while commits and all
+     * other queries always go to the primary.
+     *
+     * @param replicas a map of replica configs by primary DataSource name.
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("Read replicas of DataSources used by Cayenne, keyed by the primary DataSource name. SELECT " +
+            "queries outside of commits are routed to the replicas, while commits and all other queries always go " +
+            "to the primary DataSource.")
+    public void setReplicas(Map<String, ReadReplicasConfig> replicas) {
+        this.replicas = replicas;
+    }
+
+    /**
+     * Sets a flag that defines whether to record latency, row count and error metrics of Cayenne queries. The default
+     * is 'false'. When enabled, the metrics are available via injectable {@link QueryMetrics}.
+     *
+     * @param queryMetrics if true, a metrics filter is added to Cayenne DataDomain.
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("Whether to record latency, row count and error metrics of Cayenne queries, tagged by query " +
+            "root entity and query type. The default is 'false'.")
+    public void setQueryMetrics(boolean queryMetrics) {
+        this.queryMetrics = queryMetrics;
+    }
+
+    /**
+     * Sets a flag that defines whether to emit JDK Flight Recorder events for Cayenne queries, commits, query cache
+     * lookups and startup phases. The default is 'false'. Ignored on JVMs without JFR API.
+     *
+     * @param jfrEvents if true, JFR filters are added to Cayenne DataDomain, and the query cache is decorated.
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("Whether to emit JDK Flight Recorder events for queries (entity, duration, rows), commits " +
+            "(duration, change counts), query cache hits and misses, and startup phases. The events are recorded " +
+            "only when enabled in a JFR recording. The default is 'false'.")
+    public void setJfrEvents(boolean jfrEvents) {
+        this.jfrEvents = jfrEvents;
+    }
+
+    /**
+     * Sets an optional config of the slow query log. When present, Cayenne queries running longer than a configured
+     * threshold are logged with their SQL.
+     *
+     * @param slowQueryLog slow query log config
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("An optional config of the slow query log. When present, queries running longer than a " +
+            "threshold are logged together with their SQL, parameters and row count.")
+    public void setSlowQueryLog(SlowQueryLogFactory slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Sets a flag that defines whether concurrent identical cached queries should be coalesced. The default is
+     * 'false'. When enabled, if a query cache entry is missing, only one of the threads requesting it runs the query,
+     * and the rest wait for its result.
+     *
+     * @param coalesceQueries if true, concurrent cache misses for the same cache key will result in a single query.
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("Whether to coalesce concurrent identical cached queries, so that on a cache miss only one " +
+            "thread runs the query, and others wait for its result. The default is 'false'.")
+    public void setCoalesceQueries(boolean coalesceQueries) {
+        this.coalesceQueries = coalesceQueries;
+    }
+
+    /**
+     * Sets the max time a thread waits for a coalesced query run by another thread, before running the query itself.
+     * The default is 30s.
+     *
+     * @param coalesceTimeout max wait time for a coalesced query.
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("When 'coalesceQueries' is enabled, the max time a thread waits for the same query run by " +
+            "another thread, before running the query itself. The default is 30s.")
+    public void setCoalesceTimeout(Duration coalesceTimeout) {
+        this.coalesceTimeout = coalesceTimeout;
+    }
+
+    /**
+     * Sets an optional config of the Cayenne shared snapshot cache. When present, the cache is sized and expired
+     * according to the config, and its statistics are available via injectable {@link SnapshotCacheStats}.
+     *
+     * @param snapshotCache snapshot cache config
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("An optional config of the shared snapshot cache. When present, allows to set the cache size " +
+            "and snapshot expiration, and collects cache statistics available via injectable SnapshotCacheStats.")
+    public void setSnapshotCache(SnapshotCacheFactory snapshotCache) {
+        this.snapshotCache = snapshotCache;
+    }
+
+    /**
+     * Sets an optional config of per-DataSource connection limits. When present, Cayenne threads wait for a free
+     * connection on a semaphore sized per DataSource, instead of blocking inside the connection pool.
+     *
+     * @param connectionLimits connection limits config
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("An optional config of max concurrent connections per DataSource used by Cayenne. Threads " +
+            "over the limit wait for a connection in a fair queue, and fail after a configurable timeout.")
+    public void setConnectionLimits(ConnectionLimitsFactory connectionLimits) {
+        this.connectionLimits = connectionLimits;
+    }
+
+    /**
+     * Sets an optional config of the executors used by the injectable {@link io.bootique.cayenne.v42.async.AsyncQueries}.
+     *
+     * @param async async query executors config
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("An optional config of the thread pools running queries submitted via injectable " +
+            "AsyncQueries. Each DataNode gets its own pool.")
+    public void setAsync(AsyncQueriesFactory async) {
+        this.async = async;
+    }
+
+    /**
+     * Sets a default JDBC statement fetch size for the queries streamed via injectable
+     * {@link io.bootique.cayenne.v42.stream.QueryStreams}. The default is 1000.
+     *
+     * @param streamFetchSize JDBC fetch size of streamed queries. Zero or negative value means driver default.
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("Default JDBC statement fetch size for queries streamed via injectable QueryStreams, unless " +
+            "a query sets its own. Zero means driver default. The default is 1000.")
+    public void setStreamFetchSize(int streamFetchSize) {
+        this.streamFetchSize = streamFetchSize;
+    }
+
+    /**
+     * Sets an optional config that enables asynchronous invocation of post-commit callbacks of the listeners
+     * registered via {@link CayenneModuleExtender#addListener(Object)}.
+     *
+     * @param asyncListeners async listeners config
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("An optional config that makes '@PostPersist', '@PostUpdate' and '@PostRemove' callbacks of " +
+            "the listeners registered via CayenneModule run on a bounded background queue instead of the " +
+            "committing thread. If missing, all callbacks are invoked synchronously.")
+    public void setAsyncListeners(AsyncListenersFactory asyncListeners) {
+        this.asyncListeners = asyncListeners;
+    }
+
+    /**
+     * Sets a flag that defines whether Cayenne model metadata should be built eagerly when the runtime is created.
+     * The default is 'false'.
+     *
+     * @param warmup if true, DataDomain is started and entity descriptors are built in parallel on runtime creation.
+     * @since 2.0.B1
+     */
+    @BQConfigProperty("Whether to eagerly build entity class descriptors, lifecycle callback registry and commit " +
+            "ordering indexes in parallel when the runtime is created, instead of lazily on first use of each " +
+            "entity. Implies DataDomain startup on runtime creation. The default is 'false'.")
+    public void setWarmup(boolean warmup) {
+        this.warmup = warmup;
+    }
 }
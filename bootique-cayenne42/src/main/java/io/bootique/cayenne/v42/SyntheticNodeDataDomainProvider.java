@@ -19,6 +19,10 @@
 
 package io.bootique.cayenne.v42;
 
+import io.bootique.cayenne.v42.startup.StartupTimings;
+import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.configuration.Constants;
 import org.apache.cayenne.configuration.DataChannelDescriptor;
 import org.apache.cayenne.configuration.DataMapLoader;
 import org.apache.cayenne.configuration.DataNodeDescriptor;
@@ -30,11 +34,17 @@ import org.apache.cayenne.resource.Resource;
 import org.apache.cayenne.resource.URLResource;
 
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @since 1.0.RC1
@@ -52,14 +62,94 @@ public class SyntheticNodeDataDomainProvider extends DataDomainProvider {
     @Inject
     private DefaultDataSourceName defaultDatasource;
 
+    @Inject
+    private DataMapLoadingMode dataMapLoadingMode;
+
+    @Inject
+    private ModelSnapshot modelSnapshot;
+
+    @Inject
+    private StartupTimings startupTimings;
+
+    @Override
+    protected DataDomain createAndInitDataDomain() throws Exception {
+        long start = System.nanoTime();
+        try {
+            return super.createAndInitDataDomain();
+        } finally {
+            startupTimings.record(StartupTimings.DATA_DOMAIN, System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    protected DataNode addDataNode(DataDomain dataDomain, DataNodeDescriptor nodeDescriptor) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return super.addDataNode(dataDomain, nodeDescriptor);
+        } finally {
+            startupTimings.record(StartupTimings.DATA_NODES, System.nanoTime() - start);
+        }
+    }
+
     @Override
     protected DataChannelDescriptor loadDescriptor() {
+        return startupTimings.time(
+                StartupTimings.DESCRIPTOR_LOADING,
+                () -> modelSnapshot.isEnabled() ? loadDescriptorViaSnapshot() : loadDescriptorFromXml());
+    }
+
+    private DataChannelDescriptor loadDescriptorViaSnapshot() {
+
+        String key = snapshotKey();
+        DataChannelDescriptor descriptor = modelSnapshot.read(key);
+        if (descriptor != null) {
+            return descriptor;
+        }
+
+        descriptor = loadDescriptorFromXml();
+        modelSnapshot.write(key, descriptor, projectSources());
+        return descriptor;
+    }
+
+    private DataChannelDescriptor loadDescriptorFromXml() {
         DataChannelDescriptor d1 = super.loadDescriptor();
         DataChannelDescriptor d2 = mergeExplicitMaps(d1);
         DataChannelDescriptor d3 = resolveMissingDataNodes(d2);
         return d3;
     }
 
+    // a snapshot built for a different set of configs, maps or DataSources can't be reused
+    private String snapshotKey() {
+
+        StringBuilder key = new StringBuilder()
+                .append("cayenne:").append(DataChannelDescriptor.class.getPackage().getImplementationVersion())
+                .append("|name:").append(runtimeProperties.get(Constants.SERVER_DOMAIN_NAME_PROPERTY))
+                .append("|datasource:").append(defaultDatasource.getOptionalName())
+                .append("|configs:").append(locations);
+
+        for (DataMapConfig config : dataMapConfigs) {
+            key.append("|map:").append(config.getName())
+                    .append(",").append(config.getLocation().getUrl().toExternalForm())
+                    .append(",").append(config.getDatasource());
+        }
+
+        return key.toString();
+    }
+
+    private Collection<URL> projectSources() {
+
+        // same resolution strategy as in "super.loadDescriptor()" - the first found resource wins
+        List<URL> urls = new ArrayList<>(locations.size());
+        for (String location : locations) {
+            Collection<Resource> resources = resourceLocator.findResources(location);
+            if (!resources.isEmpty()) {
+                urls.add(resources.iterator().next().getURL());
+            }
+        }
+
+        return urls;
+    }
+
     private DataChannelDescriptor mergeExplicitMaps(DataChannelDescriptor mainDescriptor) {
         return dataMapConfigs.isEmpty()
                 ? mainDescriptor
@@ -77,9 +167,15 @@ public class SyntheticNodeDataDomainProvider extends DataDomainProvider {
 
         Map<String, DataNodeDescriptor> nodeDescriptors = new HashMap<>();
 
-        for (DataMapConfig config : dataMapConfigs) {
+        List<DataMap> dataMaps = dataMapLoadingMode.isParallel() && dataMapConfigs.size() > 1
+                ? loadDataMapsInParallel()
+                : loadDataMaps();
+
+        // merging in the order of configs, regardless of how the maps were loaded
+        for (int i = 0; i < dataMapConfigs.size(); i++) {
 
-            DataMap dataMap = loadDataMap(config);
+            DataMapConfig config = dataMapConfigs.get(i);
+            DataMap dataMap = dataMaps.get(i);
             descriptor.getDataMaps().add(dataMap);
 
             String dataSourceName = config.getDatasource() != null
@@ -96,12 +192,75 @@ public class SyntheticNodeDataDomainProvider extends DataDomainProvider {
         return descriptor;
     }
 
-    private DataMap loadDataMap(DataMapConfig config) {
+    private List<DataMap> loadDataMaps() {
+
+        DataMapLoader loader = xmlDataMapLoaderProvider.get();
+        List<DataMap> dataMaps = new ArrayList<>(dataMapConfigs.size());
+        for (DataMapConfig config : dataMapConfigs) {
+            dataMaps.add(loadDataMap(loader, config));
+        }
+
+        return dataMaps;
+    }
+
+    private List<DataMap> loadDataMapsInParallel() {
+
+        int threads = Math.min(dataMapConfigs.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<Future<DataMap>> futures = new ArrayList<>(dataMapConfigs.size());
+            for (DataMapConfig config : dataMapConfigs) {
+                futures.add(executor.submit(() -> loadDataMap(createDataMapLoader(), config)));
+            }
+
+            List<DataMap> dataMaps = new ArrayList<>(futures.size());
+            for (Future<DataMap> f : futures) {
+                dataMaps.add(f.get());
+            }
+
+            return dataMaps;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading DataMaps", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException
+                    ? (RuntimeException) cause
+                    : new IllegalStateException("Error loading DataMaps", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates a new DataMapLoader of the same type as the one bound in Cayenne DI. Used for parallel loading, as the
+     * default {@link org.apache.cayenne.configuration.xml.XMLDataMapLoader} serializes its "load" calls.
+     *
+     * @since 2.0.B1
+     */
+    protected DataMapLoader createDataMapLoader() {
+
+        Class<? extends DataMapLoader> type = xmlDataMapLoaderProvider.get().getClass();
+
+        DataMapLoader loader;
+        try {
+            loader = type.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't create DataMapLoader of type " + type.getName(), e);
+        }
+
+        injector.injectMembers(loader);
+        return loader;
+    }
+
+    private DataMap loadDataMap(DataMapLoader loader, DataMapConfig config) {
 
         URL url = config.getLocation().getUrl();
         String dataMapName = config.getName() != null ? config.getName() : url.toExternalForm();
         Resource location = new URLResource(url);
-        DataMap dataMap = xmlDataMapLoaderProvider.get().load(location);
+        DataMap dataMap = loader.load(location);
         dataMap.setName(dataMapName);
 
         return dataMap;
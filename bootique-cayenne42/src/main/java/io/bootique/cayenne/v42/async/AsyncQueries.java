@@ -0,0 +1,257 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.async;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.map.DataMap;
+import org.apache.cayenne.query.Select;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * An asynchronous facade to Cayenne {@link ServerRuntime}. Runs queries on dedicated executors, one per DataNode, so
+ * that the calling threads (e.g. event loop threads of a reactive HTTP stack) are not blocked on JDBC. Each query is
+ * executed in a new {@link ObjectContext}. Operations not tied to a single query are executed on a separate default
+ * executor. Independent queries against multiple DataNodes can be run in parallel via {@link #selectAll(List)}.
+ * Executor queues are bounded, and a query rejected by a full executor completes its stage exceptionally with
+ * {@link RejectedExecutionException}. So does a query submitted after shutdown, or dropped from the queue when the
+ * shutdown timeout expires.
+ *
+ * @since 2.0.B1
+ */
+public class AsyncQueries {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncQueries.class);
+
+    private final ServerRuntime runtime;
+    private final Map<String, ExecutorService> nodeExecutors;
+    private final ExecutorService defaultExecutor;
+    private final long shutdownTimeoutMs;
+
+    public AsyncQueries(
+            ServerRuntime runtime,
+            Map<String, ExecutorService> nodeExecutors,
+            ExecutorService defaultExecutor,
+            long shutdownTimeoutMs) {
+
+        this.runtime = runtime;
+        this.nodeExecutors = nodeExecutors;
+        this.defaultExecutor = defaultExecutor;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+
+    /**
+     * Runs a query (such as ObjectSelect or SQLSelect) on the executor of the query DataNode.
+     */
+    public <T> CompletionStage<List<T>> select(Select<T> query) {
+        return supplyAsync(() -> query.select(runtime.newContext()), executor(query));
+    }
+
+    /**
+     * Runs a query (such as ObjectSelect or SQLSelect) on the executor of the query DataNode, returning a single
+     * object or null. The stage completes exceptionally if the query matches more than one object.
+     */
+    public <T> CompletionStage<T> selectOne(Select<T> query) {
+        return supplyAsync(() -> query.selectOne(runtime.newContext()), executor(query));
+    }
+
+    /**
+     * Runs independent queries in parallel, each on the executor of its DataNode, so that queries against different
+     * databases do not wait for each other. Per-node parallelism is bounded by the size of the node executor.
+     *
+     * @return a stage completed with the results of each query, in the order of the queries, or completed
+     * exceptionally if any of the queries fails.
+     */
+    public <T> CompletionStage<List<List<T>>> selectAll(List<? extends Select<T>> queries) {
+
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(queries.size());
+        for (Select<T> q : queries) {
+            futures.add(select(q).toCompletableFuture());
+        }
+
+        return CompletableFuture
+                .allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> {
+                    List<List<T>> results = new ArrayList<>(futures.size());
+                    futures.forEach(f -> results.add(f.join()));
+                    return results;
+                });
+    }
+
+    /**
+     * Runs independent queries in parallel like {@link #selectAll(List)}, merging their results in a single list,
+     * in the order of the queries.
+     */
+    public <T> CompletionStage<List<T>> selectMerged(List<? extends Select<T>> queries) {
+        return selectAll(queries).thenApply(results -> {
+
+            int size = 0;
+            for (List<T> r : results) {
+                size += r.size();
+            }
+
+            List<T> merged = new ArrayList<>(size);
+            results.forEach(merged::addAll);
+            return merged;
+        });
+    }
+
+    /**
+     * Runs an arbitrary operation with a new ObjectContext on the default executor. Can be used for commits and
+     * other multi-query work.
+     */
+    public <T> CompletionStage<T> run(Function<ObjectContext, T> op) {
+        return supplyAsync(() -> op.apply(runtime.newContext()), defaultExecutor);
+    }
+
+    /**
+     * Runs an arbitrary operation with a new ObjectContext on the executor of the named DataNode.
+     */
+    public <T> CompletionStage<T> run(String dataNode, Function<ObjectContext, T> op) {
+
+        ExecutorService executor = nodeExecutors.get(dataNode);
+        if (executor == null) {
+            throw new CayenneRuntimeException("Unknown DataNode: %s", dataNode);
+        }
+
+        return supplyAsync(() -> op.apply(runtime.newContext()), executor);
+    }
+
+    /**
+     * Stops accepting new queries and waits for the running and queued queries to finish within the shutdown
+     * timeout. Queries still unfinished after the timeout are interrupted, and the stages of the queued ones are
+     * completed exceptionally.
+     */
+    public void shutdown() {
+
+        List<ExecutorService> executors = new ArrayList<>(nodeExecutors.values());
+        executors.add(defaultExecutor);
+        executors.forEach(ExecutorService::shutdown);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+        try {
+            for (ExecutorService executor : executors) {
+                long remaining = deadline - System.nanoTime();
+                if (!executor.awaitTermination(Math.max(remaining, 0L), TimeUnit.NANOSECONDS)) {
+                    int dropped = failDropped(executor.shutdownNow());
+                    LOGGER.warn("Async queries did not finish on shutdown, {} queued query(s) dropped", dropped);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executors.forEach(ex -> failDropped(ex.shutdownNow()));
+        }
+    }
+
+    protected <T> CompletionStage<T> supplyAsync(Supplier<T> op, Executor executor) {
+
+        AsyncQuery<T> query = new AsyncQuery<>(op);
+        try {
+            executor.execute(query);
+        } catch (RejectedExecutionException e) {
+            query.fail(e);
+        }
+
+        return query.future;
+    }
+
+    // the stages of the queries dropped from the executor queues must not be left hanging
+    private static int failDropped(List<Runnable> dropped) {
+
+        RejectedExecutionException e = new RejectedExecutionException("Async query dropped on shutdown");
+        for (Runnable r : dropped) {
+            if (r instanceof AsyncQuery) {
+                ((AsyncQuery<?>) r).fail(e);
+            }
+        }
+
+        return dropped.size();
+    }
+
+    protected ExecutorService executor(Select<?> query) {
+        DataNode node = dataNode(query);
+        ExecutorService executor = node != null ? nodeExecutors.get(node.getName()) : null;
+        return executor != null ? executor : defaultExecutor;
+    }
+
+    protected DataNode dataNode(Select<?> query) {
+
+        DataDomain domain = runtime.getDataDomain();
+        DataMap map = query.getMetaData(domain.getEntityResolver()).getDataMap();
+        if (map != null) {
+            DataNode node = domain.lookupDataNode(map);
+            if (node != null) {
+                return node;
+            }
+        }
+
+        return domain.getDefaultNode();
+    }
+
+    /**
+     * A task that completes its future with the result of the query. Unlike the tasks of
+     * {@link CompletableFuture#supplyAsync(Supplier, Executor)}, can be recognized among the tasks dropped by an
+     * executor, so that the future can be failed.
+     */
+    static class AsyncQuery<T> implements Runnable {
+
+        private final Supplier<T> op;
+        final CompletableFuture<T> future;
+
+        AsyncQuery(Supplier<T> op) {
+            this.op = op;
+            this.future = new CompletableFuture<>();
+        }
+
+        @Override
+        public void run() {
+
+            if (future.isDone()) {
+                return;
+            }
+
+            try {
+                future.complete(op.get());
+            } catch (Throwable th) {
+                future.completeExceptionally(th);
+            }
+        }
+
+        void fail(Throwable th) {
+            future.completeExceptionally(th);
+        }
+    }
+}
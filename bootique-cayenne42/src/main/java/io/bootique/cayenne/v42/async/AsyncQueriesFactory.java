@@ -0,0 +1,156 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.async;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @since 2.0.B1
+ */
+@BQConfig("Configures executors of the asynchronous Cayenne query API")
+public class AsyncQueriesFactory {
+
+    private static final int DEFAULT_THREADS = 10;
+    private static final int DEFAULT_QUEUE_SIZE = 1_000;
+    private static final long DEFAULT_SHUTDOWN_TIMEOUT_MS = 10_000L;
+
+    private Integer threads;
+    private Map<String, Integer> nodeThreads;
+    private Integer queueSize;
+    private AsyncQueryOverflowPolicy overflow;
+    private Duration shutdownTimeout;
+
+    public AsyncQueriesFactory() {
+        this.nodeThreads = new HashMap<>();
+    }
+
+    public AsyncQueries createAsyncQueries(ServerRuntime runtime) {
+
+        int defaultThreads = threads != null ? threads : DEFAULT_THREADS;
+
+        Map<String, ExecutorService> nodeExecutors = new HashMap<>();
+        for (DataNode node : runtime.getDataDomain().getDataNodes()) {
+            int size = nodeThreads.getOrDefault(node.getName(), defaultThreads);
+            nodeExecutors.put(node.getName(), createExecutor(node.getName(), size));
+        }
+
+        return new AsyncQueries(
+                runtime,
+                nodeExecutors,
+                createExecutor("default", defaultThreads),
+                shutdownTimeout != null ? shutdownTimeout.getDuration().toMillis() : DEFAULT_SHUTDOWN_TIMEOUT_MS);
+    }
+
+    protected ExecutorService createExecutor(String name, int size) {
+
+        if (size <= 0) {
+            throw new IllegalStateException("Number of async threads for '" + name + "' must be positive: " + size);
+        }
+
+        int queueSize = this.queueSize != null ? this.queueSize : DEFAULT_QUEUE_SIZE;
+        if (queueSize <= 0) {
+            throw new IllegalStateException("Async query queue size must be positive: " + queueSize);
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                size,
+                size,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "bootique-cayenne-async-" + name + "-" + counter.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                },
+                createOverflowHandler());
+
+        // do not keep idle threads for the nodes that are not queried asynchronously
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    protected RejectedExecutionHandler createOverflowHandler() {
+
+        AsyncQueryOverflowPolicy overflow = this.overflow != null ? this.overflow : AsyncQueryOverflowPolicy.ABORT;
+        switch (overflow) {
+            case ABORT:
+                return new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS:
+                return AsyncQueriesFactory::runInCaller;
+            default:
+                throw new IllegalStateException("Unsupported overflow policy: " + overflow);
+        }
+    }
+
+    // unlike ThreadPoolExecutor.CallerRunsPolicy, rejects the task after shutdown instead of silently dropping it,
+    // so that its stage is failed
+    private static void runInCaller(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            throw new RejectedExecutionException("Async query executor is shut down");
+        }
+
+        task.run();
+    }
+
+    @BQConfigProperty("Default number of threads running async queries for each DataNode. Normally should not " +
+            "exceed the DataSource pool size. The default is 10.")
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    @BQConfigProperty("Number of async query threads keyed by DataNode name. Overrides the default 'threads' value " +
+            "for the listed nodes.")
+    public void setNodeThreads(Map<String, Integer> nodeThreads) {
+        this.nodeThreads = nodeThreads;
+    }
+
+    @BQConfigProperty("Max number of queries waiting for a thread in each executor. The default is 1000.")
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    @BQConfigProperty("What to do with a query when the executor queue is full. Can be 'ABORT' (the query stage " +
+            "fails with RejectedExecutionException) or 'CALLER_RUNS' (the query runs in the calling thread). " +
+            "The default is 'ABORT'.")
+    public void setOverflow(AsyncQueryOverflowPolicy overflow) {
+        this.overflow = overflow;
+    }
+
+    @BQConfigProperty("How long to wait for the running and queued queries on shutdown. The default is 10s.")
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+}
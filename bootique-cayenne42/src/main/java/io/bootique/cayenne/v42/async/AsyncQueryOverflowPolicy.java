@@ -0,0 +1,41 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.async;
+
+/**
+ * Defines what happens to an asynchronous query when the queue of its executor is full.
+ *
+ * @since 2.0.B1
+ */
+public enum AsyncQueryOverflowPolicy {
+
+    /**
+     * The query is rejected, and the returned stage is completed exceptionally with
+     * {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    ABORT,
+
+    /**
+     * The query is executed synchronously in the calling thread. Never rejects queries, but blocks the caller, so
+     * should not be used when queries are submitted from event loop threads. Queries submitted after shutdown are
+     * still rejected.
+     */
+    CALLER_RUNS
+}
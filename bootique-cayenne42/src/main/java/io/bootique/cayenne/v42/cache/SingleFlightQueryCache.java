@@ -0,0 +1,174 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.cache;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.configuration.RuntimeProperties;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A decorator of Cayenne {@link QueryCache} that coalesces concurrent cache misses for the same cache key. The first
+ * caller runs the query via the entry factory, while the others wait for its result instead of running the same query
+ * in parallel. This protects the DB from "thundering herds" when a popular cache entry expires under load. The wait
+ * is bounded by {@link #WAIT_TIMEOUT_PROPERTY}, after which a waiting caller runs the query on its own, so a hung
+ * query doesn't stall every caller of the same key.
+ *
+ * @since 2.0.B1
+ */
+@SuppressWarnings("rawtypes")
+public class SingleFlightQueryCache implements QueryCache {
+
+    /**
+     * A Cayenne runtime property with the max time in milliseconds to wait for the query run by another thread.
+     */
+    public static final String WAIT_TIMEOUT_PROPERTY = "bootique.cayenne.coalesceQueries.timeout";
+
+    static final long DEFAULT_WAIT_TIMEOUT_MS = 30_000L;
+
+    private final QueryCache delegate;
+    private final long waitTimeoutMs;
+    private final ConcurrentMap<String, Flight> inFlight;
+
+    public SingleFlightQueryCache(@Inject QueryCache delegate, @Inject RuntimeProperties properties) {
+        this(delegate, properties.getLong(WAIT_TIMEOUT_PROPERTY, DEFAULT_WAIT_TIMEOUT_MS));
+    }
+
+    public SingleFlightQueryCache(QueryCache delegate, long waitTimeoutMs) {
+        this.delegate = delegate;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.inFlight = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+        return delegate.get(metadata);
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        String key = metadata.getCacheKey();
+        if (key == null) {
+            return delegate.get(metadata, factory);
+        }
+
+        Flight flight = new Flight();
+        Flight existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+
+            // a reentrant call from the factory of the same key would wait for itself forever
+            if (existing.owner == Thread.currentThread()) {
+                return delegate.get(metadata, factory);
+            }
+
+            List result = awaitFlight(existing);
+
+            // on timeout running the query without coalescing
+            return result != null ? result : delegate.get(metadata, factory);
+        }
+
+        try {
+            List result = delegate.get(metadata, factory);
+            flight.result.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Waits for the result of another thread query, returning null if it doesn't finish within the timeout.
+     */
+    List awaitFlight(Flight flight) {
+        return flight.await(waitTimeoutMs);
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        delegate.put(metadata, results);
+    }
+
+    @Override
+    public void remove(String key) {
+        delegate.remove(key);
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        delegate.removeGroup(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        delegate.removeGroup(groupKey, keyType, valueType);
+    }
+
+    @Deprecated
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    static class Flight {
+
+        final Thread owner = Thread.currentThread();
+        final CompletableFuture<List> result = new CompletableFuture<>();
+
+        List await(long timeoutMs) {
+            try {
+                return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a coalesced query", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.limit;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * @since 2.0.B1
+ */
+@BQConfig("Limits the number of concurrent connections Cayenne takes from each DataSource")
+public class ConnectionLimitsFactory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionLimitsFactory.class);
+
+    private static final long DEFAULT_TIMEOUT_MS = 30_000L;
+
+    // max pool size getters of Tomcat JDBC, HikariCP and DBCP2 respectively
+    private static final String[] POOL_SIZE_GETTERS = {"getMaxActive", "getMaximumPoolSize", "getMaxTotal"};
+
+    private Map<String, Integer> datasources;
+    private Duration timeout;
+
+    public ConnectionLimitsFactory() {
+        this.datasources = new HashMap<>();
+    }
+
+    /**
+     * Returns a fair semaphore for the named DataSource, or null if the DataSource is not limited. DataSources not
+     * listed in the config are limited to the max size of their connection pool, if the pool reports it.
+     */
+    public Semaphore createPermits(String datasource, DataSource pool) {
+
+        Integer limit = datasources.get(datasource);
+        if (limit == null) {
+            limit = maxPoolSize(pool);
+            if (limit == null) {
+                return null;
+            }
+
+            LOGGER.debug("Connection limit for DataSource '{}' is set to its pool size: {}", datasource, limit);
+        }
+
+        if (limit <= 0) {
+            throw new IllegalStateException("Connection limit for DataSource '" + datasource
+                    + "' must be positive: " + limit);
+        }
+
+        return new Semaphore(limit, true);
+    }
+
+    /**
+     * Returns the max number of connections in the DataSource pool, or null if the pool doesn't report it.
+     * bootique-jdbc has no pool size API, so the size is read from the known pool implementations (Tomcat JDBC,
+     * HikariCP, DBCP2) via their respective getters.
+     */
+    protected Integer maxPoolSize(DataSource pool) {
+
+        for (String getter : POOL_SIZE_GETTERS) {
+
+            Method method;
+            try {
+                method = pool.getClass().getMethod(getter);
+            } catch (NoSuchMethodException e) {
+                continue;
+            }
+
+            try {
+                Object size = method.invoke(pool);
+                if (size instanceof Integer && (Integer) size > 0) {
+                    return (Integer) size;
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Failed to read pool size of {}: {}", pool.getClass().getName(), e.getMessage());
+            }
+
+            return null;
+        }
+
+        return null;
+    }
+
+    public DataSource createDataSource(String datasource, DataSource delegate, Semaphore permits) {
+        return new ConnectionLimitingDataSource(datasource, delegate, permits, getTimeoutMs());
+    }
+
+    protected long getTimeoutMs() {
+        return timeout != null ? timeout.getDuration().toMillis() : DEFAULT_TIMEOUT_MS;
+    }
+
+    @BQConfigProperty("Max number of concurrent connections keyed by DataSource name. DataSources not listed here are " +
+            "limited to the max size of their pool if it can be determined (Tomcat JDBC, HikariCP and DBCP2 pools), " +
+            "and are not limited otherwise.")
+    public void setDatasources(Map<String, Integer> datasources) {
+        this.datasources = datasources;
+    }
+
+    @BQConfigProperty("How long to wait for a connection when the limit is reached, before failing the query. The " +
+            "default is 30s.")
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+}
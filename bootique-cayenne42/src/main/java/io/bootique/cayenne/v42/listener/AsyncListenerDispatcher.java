@@ -0,0 +1,208 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.listener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs lifecycle listener callbacks off the committing thread. Callbacks are spread between single-threaded
+ * "stripes" by entity name, so the callbacks for any given entity are invoked in the order they were dispatched.
+ * Each stripe has a bounded queue, and the behavior on overflow is defined by {@link ListenerOverflowPolicy}.
+ * A {@link #disabled() disabled} dispatcher has no threads and invokes the callbacks in the calling thread.
+ *
+ * @since 2.0.B1
+ */
+public class AsyncListenerDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncListenerDispatcher.class);
+
+    private final ThreadPoolExecutor[] stripes;
+    private final AtomicLong discarded;
+    private final long shutdownTimeoutMs;
+
+    private AsyncListenerDispatcher() {
+        this.discarded = new AtomicLong();
+        this.shutdownTimeoutMs = 0L;
+        this.stripes = new ThreadPoolExecutor[0];
+    }
+
+    public AsyncListenerDispatcher(int threads, int queueSize, ListenerOverflowPolicy overflow, long shutdownTimeoutMs) {
+
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of async listener threads must be positive: " + threads);
+        }
+
+        if (queueSize <= 0) {
+            throw new IllegalArgumentException("Async listener queue size must be positive: " + queueSize);
+        }
+
+        this.discarded = new AtomicLong();
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+        this.stripes = new ThreadPoolExecutor[threads];
+
+        RejectedExecutionHandler overflowHandler = createOverflowHandler(overflow);
+        for (int i = 0; i < threads; i++) {
+            String threadName = "bootique-cayenne-listener-" + i;
+            stripes[i] = new ThreadPoolExecutor(
+                    1,
+                    1,
+                    0L,
+                    TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueSize),
+                    r -> {
+                        Thread t = new Thread(r, threadName);
+                        t.setDaemon(true);
+                        return t;
+                    },
+                    overflowHandler);
+        }
+    }
+
+    /**
+     * Returns a dispatcher that has no threads and invokes the callbacks in the calling thread.
+     */
+    public static AsyncListenerDispatcher disabled() {
+        return new AsyncListenerDispatcher();
+    }
+
+    /**
+     * Returns whether this dispatcher invokes the callbacks asynchronously.
+     */
+    public boolean isEnabled() {
+        return stripes.length > 0;
+    }
+
+    /**
+     * Schedules a callback for asynchronous execution. Callbacks dispatched for the same entity are executed
+     * sequentially in the order of dispatch.
+     */
+    public void dispatch(String entityName, Runnable callback) {
+
+        if (!isEnabled()) {
+            callback.run();
+            return;
+        }
+
+        stripes[stripe(entityName)].execute(() -> {
+            try {
+                callback.run();
+            } catch (Throwable th) {
+                LOGGER.error("Error in async listener callback for entity '" + entityName + "'", th);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of callbacks waiting in the queues.
+     */
+    public int getQueuedCallbacks() {
+        int queued = 0;
+        for (ThreadPoolExecutor stripe : stripes) {
+            queued += stripe.getQueue().size();
+        }
+        return queued;
+    }
+
+    /**
+     * Returns the number of callbacks dropped because of the queue overflow under {@link ListenerOverflowPolicy#DISCARD}
+     * policy, or because they were dispatched after shutdown.
+     */
+    public long getDiscardedCallbacks() {
+        return discarded.get();
+    }
+
+    /**
+     * Stops accepting new callbacks and waits for the queued callbacks to finish within the shutdown timeout.
+     */
+    public void shutdown() {
+
+        for (ThreadPoolExecutor stripe : stripes) {
+            stripe.shutdown();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+        try {
+            for (ThreadPoolExecutor stripe : stripes) {
+                long remaining = deadline - System.nanoTime();
+                if (!stripe.awaitTermination(Math.max(remaining, 0L), TimeUnit.NANOSECONDS)) {
+                    int dropped = stripe.shutdownNow().size();
+                    discarded.addAndGet(dropped);
+                    LOGGER.warn("Async listener callbacks did not finish on shutdown, {} callback(s) dropped", dropped);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            for (ThreadPoolExecutor stripe : stripes) {
+                stripe.shutdownNow();
+            }
+        }
+    }
+
+    int stripe(String entityName) {
+        return entityName != null ? (entityName.hashCode() & Integer.MAX_VALUE) % stripes.length : 0;
+    }
+
+    private RejectedExecutionHandler createOverflowHandler(ListenerOverflowPolicy overflow) {
+
+        switch (overflow) {
+            case BLOCK:
+                return (r, executor) -> {
+                    if (executor.isShutdown()) {
+                        discarded.incrementAndGet();
+                        return;
+                    }
+
+                    try {
+                        executor.getQueue().put(r);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while waiting for async listener queue", e);
+                    }
+
+                    // the executor may have been shut down while we were waiting, and its worker may have already
+                    // exited, leaving the callback in the queue forever
+                    if (executor.isShutdown() && executor.getQueue().remove(r)) {
+                        discarded.incrementAndGet();
+                    }
+                };
+            case CALLER_RUNS:
+                return (r, executor) -> {
+                    if (executor.isShutdown()) {
+                        discarded.incrementAndGet();
+                        return;
+                    }
+
+                    r.run();
+                };
+            case DISCARD:
+                return (r, executor) -> discarded.incrementAndGet();
+            default:
+                throw new IllegalArgumentException("Unsupported overflow policy: " + overflow);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.listener;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.Persistent;
+import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.annotation.PostAdd;
+import org.apache.cayenne.annotation.PostLoad;
+import org.apache.cayenne.annotation.PostPersist;
+import org.apache.cayenne.annotation.PostRemove;
+import org.apache.cayenne.annotation.PostUpdate;
+import org.apache.cayenne.annotation.PrePersist;
+import org.apache.cayenne.annotation.PreRemove;
+import org.apache.cayenne.annotation.PreUpdate;
+import org.apache.cayenne.di.AdhocObjectFactory;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.LifecycleEvent;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.reflect.LifecycleCallbackRegistry;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Registers annotated lifecycle listeners with Cayenne, so that their post-commit callbacks ({@link PostPersist},
+ * {@link PostUpdate} and {@link PostRemove}) are invoked via {@link AsyncListenerDispatcher} instead of the
+ * committing thread. All other callbacks are still invoked synchronously, as they can alter the objects being
+ * committed. Replicates the annotation processing of Cayenne {@link LifecycleCallbackRegistry#addListener(Object)}.
+ * <p>
+ * Note that the async callbacks receive the same objects as the synchronous ones. Those objects may be modified by
+ * the application concurrently with the callback execution, so the listeners should only read the properties that
+ * are not expected to change after commit, e.g. IDs.
+ *
+ * @since 2.0.B1
+ */
+public class AsyncListeners {
+
+    private static final Map<Class<? extends Annotation>, CallbackAnnotation> ANNOTATIONS = createAnnotations();
+
+    private final AsyncListenerDispatcher dispatcher;
+    private final AdhocObjectFactory objectFactory;
+
+    public AsyncListeners(AsyncListenerDispatcher dispatcher, AdhocObjectFactory objectFactory) {
+        this.dispatcher = dispatcher;
+        this.objectFactory = objectFactory;
+    }
+
+    private static Map<Class<? extends Annotation>, CallbackAnnotation> createAnnotations() {
+        Map<Class<? extends Annotation>, CallbackAnnotation> annotations = new HashMap<>();
+        annotations.put(PrePersist.class, new CallbackAnnotation(LifecycleEvent.PRE_PERSIST, false,
+                a -> ((PrePersist) a).value(), a -> ((PrePersist) a).entityAnnotations()));
+        annotations.put(PreUpdate.class, new CallbackAnnotation(LifecycleEvent.PRE_UPDATE, false,
+                a -> ((PreUpdate) a).value(), a -> ((PreUpdate) a).entityAnnotations()));
+        annotations.put(PreRemove.class, new CallbackAnnotation(LifecycleEvent.PRE_REMOVE, false,
+                a -> ((PreRemove) a).value(), a -> ((PreRemove) a).entityAnnotations()));
+        annotations.put(PostAdd.class, new CallbackAnnotation(LifecycleEvent.POST_ADD, false,
+                a -> ((PostAdd) a).value(), a -> ((PostAdd) a).entityAnnotations()));
+        annotations.put(PostLoad.class, new CallbackAnnotation(LifecycleEvent.POST_LOAD, false,
+                a -> ((PostLoad) a).value(), a -> ((PostLoad) a).entityAnnotations()));
+        annotations.put(PostPersist.class, new CallbackAnnotation(LifecycleEvent.POST_PERSIST, true,
+                a -> ((PostPersist) a).value(), a -> ((PostPersist) a).entityAnnotations()));
+        annotations.put(PostUpdate.class, new CallbackAnnotation(LifecycleEvent.POST_UPDATE, true,
+                a -> ((PostUpdate) a).value(), a -> ((PostUpdate) a).entityAnnotations()));
+        annotations.put(PostRemove.class, new CallbackAnnotation(LifecycleEvent.POST_REMOVE, true,
+                a -> ((PostRemove) a).value(), a -> ((PostRemove) a).entityAnnotations()));
+        return annotations;
+    }
+
+    public void addListener(DataDomain domain, Object listener) {
+
+        EntityResolver resolver = domain.getEntityResolver();
+        LifecycleCallbackRegistry registry = resolver.getCallbackRegistry();
+
+        for (Class<?> c = listener.getClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Method m : c.getDeclaredMethods()) {
+                for (Annotation a : m.getAnnotations()) {
+                    CallbackAnnotation callbackAnnotation = ANNOTATIONS.get(a.annotationType());
+                    if (callbackAnnotation != null) {
+                        addCallback(resolver, registry, listener, m, a, callbackAnnotation);
+                    }
+                }
+            }
+        }
+    }
+
+    private void addCallback(
+            EntityResolver resolver,
+            LifecycleCallbackRegistry registry,
+            Object listener,
+            Method method,
+            Annotation annotation,
+            CallbackAnnotation callbackAnnotation) {
+
+        Object target;
+        String targetMethod;
+
+        if (callbackAnnotation.async) {
+            target = new AsyncCallback(dispatcher, listener, method);
+            targetMethod = AsyncCallback.DISPATCH_METHOD;
+        } else {
+            target = listener;
+            targetMethod = method.getName();
+        }
+
+        Set<Class<?>> entities = new HashSet<>();
+        Collections.addAll(entities, callbackAnnotation.entities.apply(annotation));
+        for (Class<? extends Annotation> entityAnnotation : callbackAnnotation.entityAnnotations.apply(annotation)) {
+            entities.addAll(annotatedEntities(resolver, entityAnnotation));
+        }
+
+        if (entities.isEmpty()) {
+            registry.addDefaultListener(callbackAnnotation.event, target, targetMethod);
+        } else {
+            for (Class<?> entity : entities) {
+                registry.addListener(callbackAnnotation.event, entity, target, targetMethod);
+            }
+        }
+    }
+
+    private Set<Class<?>> annotatedEntities(EntityResolver resolver, Class<? extends Annotation> annotation) {
+
+        Set<Class<?>> entities = new HashSet<>();
+        for (ObjEntity entity : resolver.getObjEntities()) {
+            Class<?> type = objectFactory.getJavaClass(entity.getClassName());
+
+            // entity class or its generated superclass may be annotated
+            if (type.isAnnotationPresent(annotation)
+                    || (type.getSuperclass() != null && type.getSuperclass().isAnnotationPresent(annotation))) {
+                entities.add(type);
+            }
+        }
+
+        return entities;
+    }
+
+    private static class CallbackAnnotation {
+
+        final LifecycleEvent event;
+        final boolean async;
+        final Function<Annotation, Class<?>[]> entities;
+        final Function<Annotation, Class<? extends Annotation>[]> entityAnnotations;
+
+        CallbackAnnotation(
+                LifecycleEvent event,
+                boolean async,
+                Function<Annotation, Class<?>[]> entities,
+                Function<Annotation, Class<? extends Annotation>[]> entityAnnotations) {
+
+            this.event = event;
+            this.async = async;
+            this.entities = entities;
+            this.entityAnnotations = entityAnnotations;
+        }
+    }
+
+    /**
+     * A listener registered with Cayenne in place of the user listener method, that forwards invocations to the
+     * dispatcher.
+     */
+    static class AsyncCallback {
+
+        static final String DISPATCH_METHOD = "dispatch";
+
+        private final AsyncListenerDispatcher dispatcher;
+        private final Object listener;
+        private final Method method;
+
+        AsyncCallback(AsyncListenerDispatcher dispatcher, Object listener, Method method) {
+            this.dispatcher = dispatcher;
+            this.listener = listener;
+            this.method = method;
+            method.setAccessible(true);
+        }
+
+        public void dispatch(Object entity) {
+            String entityName = entity instanceof Persistent
+                    ? ((Persistent) entity).getObjectId().getEntityName()
+                    : entity.getClass().getName();
+
+            dispatcher.dispatch(entityName, () -> invoke(entity));
+        }
+
+        private void invoke(Object entity) {
+            try {
+                method.invoke(listener, entity);
+            } catch (InvocationTargetException e) {
+                throw new CayenneRuntimeException("Error invoking async listener method '%s'",
+                        e.getCause(), method.getName());
+            } catch (IllegalAccessException e) {
+                throw new CayenneRuntimeException("Can't invoke async listener method '%s'", e, method.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.listener;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+
+/**
+ * @since 2.0.B1
+ */
+@BQConfig("Configures asynchronous invocation of post-commit callbacks of Cayenne listeners")
+public class AsyncListenersFactory {
+
+    private static final int DEFAULT_THREADS = 1;
+    private static final int DEFAULT_QUEUE_SIZE = 10_000;
+    private static final long DEFAULT_SHUTDOWN_TIMEOUT_MS = 10_000L;
+
+    private Integer threads;
+    private Integer queueSize;
+    private ListenerOverflowPolicy overflow;
+    private Duration shutdownTimeout;
+
+    public AsyncListenerDispatcher createDispatcher() {
+        return new AsyncListenerDispatcher(
+                threads != null ? threads : DEFAULT_THREADS,
+                queueSize != null ? queueSize : DEFAULT_QUEUE_SIZE,
+                overflow != null ? overflow : ListenerOverflowPolicy.BLOCK,
+                shutdownTimeout != null ? shutdownTimeout.getDuration().toMillis() : DEFAULT_SHUTDOWN_TIMEOUT_MS);
+    }
+
+    @BQConfigProperty("Number of threads invoking listener callbacks. Callbacks for the same entity are always " +
+            "invoked by the same thread in the order of commits. The default is 1.")
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    @BQConfigProperty("Max number of pending callbacks per thread. The default is 10000.")
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    @BQConfigProperty("What to do with a callback when the queue is full. Can be 'BLOCK' (commit waits for the room " +
+            "in the queue), 'CALLER_RUNS' (callback is invoked in the committing thread) or 'DISCARD' (callback is " +
+            "dropped). The default is 'BLOCK'.")
+    public void setOverflow(ListenerOverflowPolicy overflow) {
+        this.overflow = overflow;
+    }
+
+    @BQConfigProperty("How long to wait for the pending callbacks on shutdown. The default is 10s.")
+    public void setShutdownTimeout(Duration shutdownTimeout) {
+        this.shutdownTimeout = shutdownTimeout;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.listener;
+
+/**
+ * Defines what happens to an asynchronous listener callback when the dispatch queue is full.
+ *
+ * @since 2.0.B1
+ */
+public enum ListenerOverflowPolicy {
+
+    /**
+     * The committing thread waits until there is room in the queue. Preserves callback order and never loses
+     * callbacks, but the commit latency grows while listeners are behind.
+     */
+    BLOCK,
+
+    /**
+     * The callback is invoked synchronously in the committing thread. Never loses callbacks, but may run them out of
+     * order relative to the callbacks still in the queue.
+     */
+    CALLER_RUNS,
+
+    /**
+     * The callback is dropped and counted in {@link AsyncListenerDispatcher#getDiscardedCallbacks()}.
+     */
+    DISCARD
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import org.apache.cayenne.access.translator.ParameterBinding;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.log.JdbcEventLogger;
+import org.apache.cayenne.map.DbAttribute;
+
+/**
+ * A decorator of Cayenne {@link JdbcEventLogger} that hands executed SQL to the {@link SqlCapture} of the current
+ * thread, if there's one, in addition to the normal logging. Capturing is a reference assignment and does not depend on
+ * whether the delegate logger is enabled.
+ *
+ * @since 2.0.B1
+ */
+public class CapturingJdbcEventLogger implements JdbcEventLogger {
+
+    private final JdbcEventLogger delegate;
+
+    public CapturingJdbcEventLogger(@Inject JdbcEventLogger delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void logQuery(String sql, ParameterBinding[] bindings) {
+
+        SqlCapture capture = SqlCapture.current();
+        if (capture != null) {
+            capture.add(sql, bindings);
+        }
+
+        if (delegate.isLoggable()) {
+            delegate.logQuery(sql, bindings);
+        }
+    }
+
+    @Override
+    public boolean isLoggable() {
+        // not enabling Cayenne logging for the captured queries, as it would make Cayenne build log messages for
+        // every query. The actions that skip "logQuery" when not loggable are handled by SlowQueryLogFilter
+        return delegate.isLoggable();
+    }
+
+    @Override
+    public void log(String message) {
+        if (delegate.isLoggable()) {
+            delegate.log(message);
+        }
+    }
+
+    @Override
+    public void logGeneratedKey(DbAttribute attribute, Object value) {
+        if (delegate.isLoggable()) {
+            delegate.logGeneratedKey(attribute, value);
+        }
+    }
+
+    @Override
+    public void logQueryParameters(String label, ParameterBinding[] bindings) {
+        if (delegate.isLoggable()) {
+            delegate.logQueryParameters(label, bindings);
+        }
+    }
+
+    @Override
+    public void logSelectCount(int count, long time) {
+        if (delegate.isLoggable()) {
+            delegate.logSelectCount(count, time);
+        }
+    }
+
+    @Override
+    public void logSelectCount(int count, long time, String sql) {
+        if (delegate.isLoggable()) {
+            delegate.logSelectCount(count, time, sql);
+        }
+    }
+
+    @Override
+    public void logUpdateCount(int count) {
+        if (delegate.isLoggable()) {
+            delegate.logUpdateCount(count);
+        }
+    }
+
+    @Override
+    public void logBeginTransaction(String transactionLabel) {
+        delegate.logBeginTransaction(transactionLabel);
+    }
+
+    @Override
+    public void logCommitTransaction(String transactionLabel) {
+        delegate.logCommitTransaction(transactionLabel);
+    }
+
+    @Override
+    public void logRollbackTransaction(String transactionLabel) {
+        delegate.logRollbackTransaction(transactionLabel);
+    }
+
+    @Override
+    public void logQueryError(Throwable th) {
+        delegate.logQueryError(th);
+    }
+}
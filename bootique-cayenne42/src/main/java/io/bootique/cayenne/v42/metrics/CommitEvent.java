@@ -0,0 +1,49 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A JDK Flight Recorder event for a Cayenne commit.
+ *
+ * @since 2.0.B1
+ */
+@Name("io.bootique.cayenne.Commit")
+@Label("Cayenne Commit")
+@Category({"Bootique", "Cayenne"})
+@Description("Cayenne commit with the number of objects changed")
+public class CommitEvent extends jdk.jfr.Event {
+
+    @Label("Inserted")
+    int inserted;
+
+    @Label("Updated")
+    int updated;
+
+    @Label("Deleted")
+    int deleted;
+
+    @Label("Failed")
+    boolean failed;
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A registry of Cayenne commit stats, populated by {@link CommitMetricsFilter}.
+ *
+ * @since 2.0.B1
+ */
+public class CommitMetrics {
+
+    private final LatencyHistogram latency;
+    private final LongAdder errors;
+    private final LongAccumulator maxObjectsPerCommit;
+    private final ConcurrentMap<String, EntityChangeStats> entityStats;
+
+    public CommitMetrics() {
+        this.latency = new LatencyHistogram();
+        this.errors = new LongAdder();
+        this.maxObjectsPerCommit = new LongAccumulator(Math::max, 0L);
+        this.entityStats = new ConcurrentHashMap<>();
+    }
+
+    void recordCommit(long nanos, int objects) {
+        latency.record(nanos);
+        maxObjectsPerCommit.accumulate(objects);
+    }
+
+    void recordError(long nanos) {
+        latency.record(nanos);
+        errors.increment();
+    }
+
+    /**
+     * Returns change stats for a given entity, creating them if needed.
+     */
+    public EntityChangeStats getEntityStats(String entity) {
+        // "get" first, as "computeIfAbsent" locks even if the value is present
+        EntityChangeStats existing = entityStats.get(entity);
+        return existing != null ? existing : entityStats.computeIfAbsent(entity, EntityChangeStats::new);
+    }
+
+    public Collection<EntityChangeStats> getEntityStats() {
+        return new ArrayList<>(entityStats.values());
+    }
+
+    /**
+     * Returns a histogram of the commit durations, including the failed commits.
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getCommitCount() {
+        return latency.getCount();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    /**
+     * Returns the largest number of objects changed by a single commit.
+     */
+    public long getMaxObjectsPerCommit() {
+        return maxObjectsPerCommit.get();
+    }
+
+    public void reset() {
+        latency.reset();
+        errors.reset();
+        maxObjectsPerCommit.reset();
+        entityStats.values().forEach(EntityChangeStats::reset);
+    }
+}
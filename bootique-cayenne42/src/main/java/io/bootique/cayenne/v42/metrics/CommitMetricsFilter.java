@@ -0,0 +1,136 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import org.apache.cayenne.DataChannel;
+import org.apache.cayenne.DataChannelSyncFilter;
+import org.apache.cayenne.DataChannelSyncFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.graph.ArcId;
+import org.apache.cayenne.graph.GraphChangeHandler;
+import org.apache.cayenne.graph.GraphDiff;
+
+import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A sync filter that records commit latency and the number of objects inserted, updated and deleted per entity in
+ * {@link CommitMetrics}. Can be contributed to Cayenne via
+ * {@code CayenneModule.extend(binder).addSyncFilter(CommitMetricsFilter.class)}.
+ *
+ * @since 2.0.B1
+ */
+public class CommitMetricsFilter implements DataChannelSyncFilter {
+
+    private final CommitMetrics metrics;
+
+    @Inject
+    public CommitMetricsFilter(CommitMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public GraphDiff onSync(
+            ObjectContext originatingContext,
+            GraphDiff changes,
+            int syncType,
+            DataChannelSyncFilterChain filterChain) {
+
+        // rollbacks do not reach the DB, so there's nothing to measure
+        if (syncType == DataChannel.ROLLBACK_CASCADE_SYNC || changes == null) {
+            return filterChain.onSync(originatingContext, changes, syncType);
+        }
+
+        // count before the commit, as committing may alter the state of the diff
+        ChangeCounter counter = new ChangeCounter();
+        changes.apply(counter);
+
+        long start = System.nanoTime();
+        GraphDiff result;
+        try {
+            result = filterChain.onSync(originatingContext, changes, syncType);
+        } catch (RuntimeException e) {
+            metrics.recordError(System.nanoTime() - start);
+            throw e;
+        }
+
+        metrics.recordCommit(System.nanoTime() - start, counter.changes.size());
+        counter.flush(metrics);
+
+        return result;
+    }
+
+    static class ChangeCounter implements GraphChangeHandler {
+
+        static final int INSERT = 1;
+        static final int UPDATE = 2;
+        static final int DELETE = 3;
+
+        final Map<Object, Integer> changes = new HashMap<>();
+
+        @Override
+        public void nodeIdChanged(Object nodeId, Object newId) {
+            // not a change of the persistent state
+        }
+
+        @Override
+        public void nodeCreated(Object nodeId) {
+            changes.put(nodeId, INSERT);
+        }
+
+        @Override
+        public void nodeRemoved(Object nodeId) {
+            // inserted and then deleted in the same commit is a noop
+            if (Integer.valueOf(INSERT).equals(changes.get(nodeId))) {
+                changes.remove(nodeId);
+            } else {
+                changes.put(nodeId, DELETE);
+            }
+        }
+
+        @Override
+        public void nodePropertyChanged(Object nodeId, String property, Object oldValue, Object newValue) {
+            changes.putIfAbsent(nodeId, UPDATE);
+        }
+
+        @Override
+        public void arcCreated(Object nodeId, Object targetNodeId, ArcId arcId) {
+            changes.putIfAbsent(nodeId, UPDATE);
+        }
+
+        @Override
+        public void arcDeleted(Object nodeId, Object targetNodeId, ArcId arcId) {
+            changes.putIfAbsent(nodeId, UPDATE);
+        }
+
+        void flush(CommitMetrics metrics) {
+
+            Map<String, int[]> byEntity = new HashMap<>();
+            changes.forEach((id, op) -> {
+                String entity = id instanceof ObjectId ? ((ObjectId) id).getEntityName() : QueryMetricsFilter.NO_ENTITY;
+                byEntity.computeIfAbsent(entity, e -> new int[3])[op - 1]++;
+            });
+
+            byEntity.forEach((e, counts) -> metrics.getEntityStats(e).record(counts[0], counts[1], counts[2]));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulated number of objects of a given entity inserted, updated and deleted by Cayenne commits.
+ *
+ * @since 2.0.B1
+ */
+public class EntityChangeStats {
+
+    private final String entity;
+    private final LongAdder inserted;
+    private final LongAdder updated;
+    private final LongAdder deleted;
+
+    public EntityChangeStats(String entity) {
+        this.entity = entity;
+        this.inserted = new LongAdder();
+        this.updated = new LongAdder();
+        this.deleted = new LongAdder();
+    }
+
+    void record(int inserted, int updated, int deleted) {
+        if (inserted > 0) {
+            this.inserted.add(inserted);
+        }
+
+        if (updated > 0) {
+            this.updated.add(updated);
+        }
+
+        if (deleted > 0) {
+            this.deleted.add(deleted);
+        }
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public long getInserted() {
+        return inserted.sum();
+    }
+
+    public long getUpdated() {
+        return updated.sum();
+    }
+
+    public long getDeleted() {
+        return deleted.sum();
+    }
+
+    void reset() {
+        inserted.reset();
+        updated.reset();
+        deleted.reset();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import org.apache.cayenne.DataChannel;
+import org.apache.cayenne.DataChannelSyncFilter;
+import org.apache.cayenne.DataChannelSyncFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.graph.GraphDiff;
+
+/**
+ * A sync filter emitting a {@link CommitEvent} for each commit.
+ *
+ * @since 2.0.B1
+ */
+public class JfrCommitFilter implements DataChannelSyncFilter {
+
+    @Override
+    public GraphDiff onSync(
+            ObjectContext originatingContext,
+            GraphDiff changes,
+            int syncType,
+            DataChannelSyncFilterChain filterChain) {
+
+        CommitEvent event = new CommitEvent();
+        if (!event.isEnabled() || syncType == DataChannel.ROLLBACK_CASCADE_SYNC || changes == null) {
+            return filterChain.onSync(originatingContext, changes, syncType);
+        }
+
+        // count before the commit, as committing may alter the state of the diff
+        CommitMetricsFilter.ChangeCounter counter = new CommitMetricsFilter.ChangeCounter();
+        changes.apply(counter);
+        counter.changes.values().forEach(op -> {
+            switch (op) {
+                case CommitMetricsFilter.ChangeCounter.INSERT:
+                    event.inserted++;
+                    break;
+                case CommitMetricsFilter.ChangeCounter.UPDATE:
+                    event.updated++;
+                    break;
+                case CommitMetricsFilter.ChangeCounter.DELETE:
+                    event.deleted++;
+                    break;
+                default:
+                    break;
+            }
+        });
+
+        event.begin();
+        try {
+            return filterChain.onSync(originatingContext, changes, syncType);
+        } catch (RuntimeException e) {
+            event.failed = true;
+            throw e;
+        } finally {
+            event.end();
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import io.bootique.cayenne.v42.startup.StartupTimings;
+import io.bootique.log.BootLogger;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.configuration.server.ServerModule;
+import org.apache.cayenne.di.Module;
+
+/**
+ * Creates a Cayenne DI module that emits JDK Flight Recorder events for queries, commits and query cache lookups, and
+ * startup timings that emit events for startup phases.
+ * The events are only emitted when enabled in a JFR recording, so the overhead is negligible otherwise.
+ *
+ * @since 2.0.B1
+ */
+public class JfrEventsSupport {
+
+    /**
+     * Returns whether the JFR API is present in the current JVM. Older Java 8 JVMs don't have it.
+     */
+    public static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, JfrEventsSupport.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    public static Module createModule() {
+        return b -> {
+            ServerModule.contributeDomainQueryFilters(b).add(new JfrQueryFilter());
+            ServerModule.contributeDomainSyncFilters(b).add(new JfrCommitFilter());
+            b.decorate(QueryCache.class).before(JfrQueryCache.class);
+        };
+    }
+
+    public static StartupTimings createStartupTimings(BootLogger logger) {
+        return new JfrStartupTimings(logger);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.cache.QueryCacheEntryFactory;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.query.QueryMetadata;
+
+import java.util.List;
+
+/**
+ * A {@link QueryCache} decorator emitting a {@link QueryCacheEvent} for each cache lookup.
+ *
+ * @since 2.0.B1
+ */
+public class JfrQueryCache implements QueryCache {
+
+    private final QueryCache delegate;
+
+    public JfrQueryCache(@Inject QueryCache delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List get(QueryMetadata metadata) {
+
+        QueryCacheEvent event = new QueryCacheEvent();
+        if (!event.isEnabled()) {
+            return delegate.get(metadata);
+        }
+
+        event.begin();
+        List result = delegate.get(metadata);
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.group = metadata.getCacheGroup();
+            event.hit = result != null;
+            event.commit();
+        }
+
+        return result;
+    }
+
+    @Override
+    public List get(QueryMetadata metadata, QueryCacheEntryFactory factory) {
+
+        QueryCacheEvent event = new QueryCacheEvent();
+        if (!event.isEnabled()) {
+            return delegate.get(metadata, factory);
+        }
+
+        // the factory is only called on a cache miss
+        boolean[] miss = new boolean[1];
+        event.begin();
+        List result = delegate.get(metadata, () -> {
+            miss[0] = true;
+            return factory.createObject();
+        });
+        event.end();
+
+        if (event.shouldCommit()) {
+            event.group = metadata.getCacheGroup();
+            event.hit = !miss[0];
+            event.commit();
+        }
+
+        return result;
+    }
+
+    @Override
+    public void put(QueryMetadata metadata, List results) {
+        delegate.put(metadata, results);
+    }
+
+    @Override
+    public void remove(String key) {
+        delegate.remove(key);
+    }
+
+    @Override
+    public void removeGroup(String groupKey) {
+        delegate.removeGroup(groupKey);
+    }
+
+    @Override
+    public void removeGroup(String groupKey, Class<?> keyType, Class<?> valueType) {
+        delegate.removeGroup(groupKey, keyType, valueType);
+    }
+
+    @Deprecated
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+}
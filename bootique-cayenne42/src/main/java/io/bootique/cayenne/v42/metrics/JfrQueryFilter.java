@@ -0,0 +1,69 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import org.apache.cayenne.DataChannelQueryFilter;
+import org.apache.cayenne.DataChannelQueryFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.query.Query;
+
+/**
+ * A query filter emitting a {@link QueryEvent} for each query.
+ *
+ * @since 2.0.B1
+ */
+public class JfrQueryFilter implements DataChannelQueryFilter {
+
+    @Override
+    public QueryResponse onQuery(ObjectContext originatingContext, Query query, DataChannelQueryFilterChain filterChain) {
+
+        QueryEvent event = new QueryEvent();
+        if (!event.isEnabled()) {
+            return filterChain.onQuery(originatingContext, query);
+        }
+
+        event.begin();
+        QueryResponse response;
+        try {
+            response = filterChain.onQuery(originatingContext, query);
+        } catch (RuntimeException e) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.entity = QueryMetricsFilter.entityName(originatingContext, query);
+                event.queryType = query.getClass().getSimpleName();
+                event.failed = true;
+                event.commit();
+            }
+
+            throw e;
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.entity = QueryMetricsFilter.entityName(originatingContext, query);
+            event.queryType = query.getClass().getSimpleName();
+            event.rows = QueryMetricsFilter.rowCount(response);
+            event.commit();
+        }
+
+        return response;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import io.bootique.cayenne.v42.startup.StartupTimings;
+import io.bootique.log.BootLogger;
+
+/**
+ * {@link StartupTimings} that also emit a {@link StartupPhaseEvent} for each recorded phase.
+ *
+ * @since 2.0.B1
+ */
+public class JfrStartupTimings extends StartupTimings {
+
+    public JfrStartupTimings(BootLogger logger) {
+        super(logger);
+    }
+
+    @Override
+    public void record(String phase, long nanos) {
+        super.record(phase, nanos);
+
+        StartupPhaseEvent event = new StartupPhaseEvent();
+        if (event.isEnabled()) {
+            event.phase = phase;
+            event.phaseDuration = nanos;
+            event.commit();
+        }
+    }
+}
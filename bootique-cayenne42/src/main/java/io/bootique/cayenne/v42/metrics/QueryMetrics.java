@@ -0,0 +1,90 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A registry of Cayenne query stats, populated by {@link QueryMetricsFilter}. Injectable from the Bootique runtime
+ * when "cayenne.queryMetrics" is enabled.
+ *
+ * @since 2.0.B1
+ */
+public class QueryMetrics {
+
+    private final ConcurrentMap<StatsKey, QueryStats> stats;
+
+    public QueryMetrics() {
+        this.stats = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns stats for the given root entity and query type, creating them if needed.
+     */
+    public QueryStats getStats(String entity, String queryType) {
+        StatsKey key = new StatsKey(entity, queryType);
+
+        // "get" first, as "computeIfAbsent" locks even if the value is present
+        QueryStats existing = stats.get(key);
+        return existing != null ? existing : stats.computeIfAbsent(key, k -> new QueryStats(k.entity, k.queryType));
+    }
+
+    public Collection<QueryStats> getStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    public void reset() {
+        stats.values().forEach(QueryStats::reset);
+    }
+
+    private static final class StatsKey {
+
+        final String entity;
+        final String queryType;
+
+        StatsKey(String entity, String queryType) {
+            this.entity = entity;
+            this.queryType = queryType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (!(o instanceof StatsKey)) {
+                return false;
+            }
+
+            StatsKey that = (StatsKey) o;
+            return entity.equals(that.entity) && queryType.equals(that.queryType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entity, queryType);
+        }
+    }
+}
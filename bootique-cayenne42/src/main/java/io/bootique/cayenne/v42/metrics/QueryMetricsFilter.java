@@ -0,0 +1,103 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import org.apache.cayenne.DataChannelQueryFilter;
+import org.apache.cayenne.DataChannelQueryFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.query.Query;
+
+import java.util.List;
+
+/**
+ * A query filter that records latency, row count and errors of Cayenne queries in {@link QueryMetrics}, tagged by
+ * the query root entity and the query type.
+ *
+ * @since 2.0.B1
+ */
+public class QueryMetricsFilter implements DataChannelQueryFilter {
+
+    static final String NO_ENTITY = "?";
+
+    private final QueryMetrics metrics;
+
+    public QueryMetricsFilter(QueryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public QueryResponse onQuery(ObjectContext originatingContext, Query query, DataChannelQueryFilterChain filterChain) {
+
+        QueryStats stats = metrics.getStats(entityName(originatingContext, query), query.getClass().getSimpleName());
+
+        long start = System.nanoTime();
+        QueryResponse response;
+        try {
+            response = filterChain.onQuery(originatingContext, query);
+        } catch (RuntimeException e) {
+            stats.recordError(System.nanoTime() - start);
+            throw e;
+        }
+
+        stats.recordSuccess(System.nanoTime() - start, rowCount(response));
+        return response;
+    }
+
+    static String entityName(ObjectContext context, Query query) {
+
+        if (context == null) {
+            return NO_ENTITY;
+        }
+
+        try {
+            ObjEntity entity = query.getMetaData(context.getEntityResolver()).getObjEntity();
+            return entity != null ? entity.getName() : NO_ENTITY;
+        } catch (RuntimeException e) {
+            // metadata resolution problems will be reported by the query itself
+            return NO_ENTITY;
+        }
+    }
+
+    static int rowCount(QueryResponse response) {
+
+        if (response == null) {
+            return 0;
+        }
+
+        List<?> list = response.firstList();
+        if (list != null) {
+            return list.size();
+        }
+
+        int[] counts = response.firstUpdateCount();
+        int total = 0;
+        if (counts != null) {
+            for (int c : counts) {
+                if (c > 0) {
+                    total += c;
+                }
+            }
+        }
+
+        return total;
+    }
+}
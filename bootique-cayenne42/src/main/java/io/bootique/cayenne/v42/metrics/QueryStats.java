@@ -0,0 +1,96 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulated stats of the queries with a given root entity and query type.
+ *
+ * @since 2.0.B1
+ */
+public class QueryStats {
+
+    private final String entity;
+    private final String queryType;
+    private final LatencyHistogram latency;
+    private final LongAdder rows;
+    private final LongAdder errors;
+
+    public QueryStats(String entity, String queryType) {
+        this.entity = entity;
+        this.queryType = queryType;
+        this.latency = new LatencyHistogram();
+        this.rows = new LongAdder();
+        this.errors = new LongAdder();
+    }
+
+    void recordSuccess(long nanos, int rowCount) {
+        latency.record(nanos);
+        rows.add(rowCount);
+    }
+
+    void recordError(long nanos) {
+        latency.record(nanos);
+        errors.increment();
+    }
+
+    /**
+     * Returns the name of the query root ObjEntity, or "?" if the query has no root entity.
+     */
+    public String getEntity() {
+        return entity;
+    }
+
+    /**
+     * Returns a simple class name of the query, e.g. "ObjectSelect".
+     */
+    public String getQueryType() {
+        return queryType;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Returns the total number of executed queries, including the failed ones.
+     */
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    /**
+     * Returns the total number of rows returned by SELECT queries or affected by update queries.
+     */
+    public long getRowCount() {
+        return rows.sum();
+    }
+
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    void reset() {
+        latency.reset();
+        rows.reset();
+        errors.reset();
+    }
+}
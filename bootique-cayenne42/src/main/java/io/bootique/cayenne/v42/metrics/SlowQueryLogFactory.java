@@ -0,0 +1,88 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+import io.bootique.value.Percent;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @since 2.0.B1
+ */
+@BQConfig("Configures logging of slow Cayenne queries")
+public class SlowQueryLogFactory {
+
+    private static final Duration DEFAULT_THRESHOLD = new Duration("1s");
+    private static final int DEFAULT_MAX_PER_SECOND = 10;
+
+    private Duration threshold;
+    private boolean logParameters;
+    private boolean maskParameters;
+    private List<String> maskedColumns;
+    private Percent sampling;
+    private Integer maxPerSecond;
+
+    public SlowQueryLogFilter createFilter() {
+        return new SlowQueryLogFilter(
+                (threshold != null ? threshold : DEFAULT_THRESHOLD).getDuration().toNanos(),
+                logParameters,
+                maskParameters,
+                maskedColumns != null ? maskedColumns : Collections.emptyList(),
+                sampling != null ? sampling.getValue() : 1.,
+                maxPerSecond != null ? maxPerSecond : DEFAULT_MAX_PER_SECOND);
+    }
+
+    @BQConfigProperty("Queries running longer than this duration are logged. The default is 1s.")
+    public void setThreshold(Duration threshold) {
+        this.threshold = threshold;
+    }
+
+    @BQConfigProperty("Whether to log bound parameters of the slow queries. The default is 'false'.")
+    public void setLogParameters(boolean logParameters) {
+        this.logParameters = logParameters;
+    }
+
+    @BQConfigProperty("Whether to replace all parameter values with a mask when 'logParameters' is enabled. The " +
+            "default is 'false'. Use 'maskedColumns' to only hide the sensitive values.")
+    public void setMaskParameters(boolean maskParameters) {
+        this.maskParameters = maskParameters;
+    }
+
+    @BQConfigProperty("Names of DB columns (or named SQL parameters) whose values are replaced with a mask when " +
+            "'logParameters' is enabled, e.g. 'password'. Case-insensitive.")
+    public void setMaskedColumns(List<String> maskedColumns) {
+        this.maskedColumns = maskedColumns;
+    }
+
+    @BQConfigProperty("A percentage of slow queries to log, e.g. '10%'. The default is '100%'.")
+    public void setSampling(Percent sampling) {
+        this.sampling = sampling;
+    }
+
+    @BQConfigProperty("Max number of slow queries to log per second. Zero or negative value means no limit. " +
+            "The default is 10.")
+    public void setMaxPerSecond(Integer maxPerSecond) {
+        this.maxPerSecond = maxPerSecond;
+    }
+}
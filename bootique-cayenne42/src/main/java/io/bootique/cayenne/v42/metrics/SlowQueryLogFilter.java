@@ -0,0 +1,280 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import org.apache.cayenne.DataChannelQueryFilter;
+import org.apache.cayenne.DataChannelQueryFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.access.translator.DbAttributeBinding;
+import org.apache.cayenne.access.translator.ParameterBinding;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.SQLExec;
+import org.apache.cayenne.query.SQLSelect;
+import org.apache.cayenne.query.SQLTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A query filter that logs queries running longer than a threshold, together with their SQL, parameters and row
+ * count. Slow queries that fail (e.g. time out) are logged with the exception. SQL is obtained from {@link CapturingJdbcEventLogger} that must be installed in Cayenne alongside this
+ * filter, or from the query itself for the SQL queries Cayenne doesn't report to a disabled logger. Parameter values
+ * of the configured columns (or all values, if requested) are masked. Logging is sampled and rate-limited to stay
+ * cheap when many queries get slow at once.
+ *
+ * @since 2.0.B1
+ */
+public class SlowQueryLogFilter implements DataChannelQueryFilter {
+
+    static final String MASK = "***";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowQueryLogFilter.class);
+
+    private final long thresholdNanos;
+    private final boolean logParameters;
+    private final boolean maskParameters;
+    private final Set<String> maskedColumns;
+    private final double sampling;
+    private final int maxPerSecond;
+
+    private final AtomicLong currentSecond;
+    private final AtomicInteger loggedInCurrentSecond;
+
+    public SlowQueryLogFilter(
+            long thresholdNanos,
+            boolean logParameters,
+            boolean maskParameters,
+            double sampling,
+            int maxPerSecond) {
+        this(thresholdNanos, logParameters, maskParameters, Collections.emptySet(), sampling, maxPerSecond);
+    }
+
+    public SlowQueryLogFilter(
+            long thresholdNanos,
+            boolean logParameters,
+            boolean maskParameters,
+            Collection<String> maskedColumns,
+            double sampling,
+            int maxPerSecond) {
+
+        this.thresholdNanos = thresholdNanos;
+        this.logParameters = logParameters;
+        this.maskParameters = maskParameters;
+        this.maskedColumns = new HashSet<>();
+        for (String column : maskedColumns) {
+            this.maskedColumns.add(column.toLowerCase(Locale.ROOT));
+        }
+
+        this.sampling = sampling;
+        this.maxPerSecond = maxPerSecond;
+        this.currentSecond = new AtomicLong();
+        this.loggedInCurrentSecond = new AtomicInteger();
+    }
+
+    @Override
+    public QueryResponse onQuery(ObjectContext originatingContext, Query query, DataChannelQueryFilterChain filterChain) {
+
+        SqlCapture capture = new SqlCapture(logParameters);
+        SqlCapture previous = capture.install();
+
+        long start = System.nanoTime();
+        QueryResponse response;
+        try {
+            response = filterChain.onQuery(originatingContext, query);
+        } catch (RuntimeException | Error e) {
+            logIfSlow(originatingContext, query, null, e, capture, System.nanoTime() - start);
+            throw e;
+        } finally {
+            SqlCapture.restore(previous);
+        }
+
+        logIfSlow(originatingContext, query, response, null, capture, System.nanoTime() - start);
+        return response;
+    }
+
+    private void logIfSlow(
+            ObjectContext context,
+            Query query,
+            QueryResponse response,
+            Throwable error,
+            SqlCapture capture,
+            long nanos) {
+
+        if (nanos >= thresholdNanos && shouldLog()) {
+            log(context, query, response, error, capture, nanos);
+        }
+    }
+
+    boolean shouldLog() {
+
+        if (sampling < 1. && ThreadLocalRandom.current().nextDouble() >= sampling) {
+            return false;
+        }
+
+        if (maxPerSecond <= 0) {
+            return true;
+        }
+
+        long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long current = currentSecond.get();
+        if (second != current && currentSecond.compareAndSet(current, second)) {
+            loggedInCurrentSecond.set(0);
+        }
+
+        return loggedInCurrentSecond.incrementAndGet() <= maxPerSecond;
+    }
+
+    /**
+     * Logs a slow query. "error" is not null if the query failed, in which case there's no "response".
+     */
+    void log(ObjectContext context, Query query, QueryResponse response, Throwable error, SqlCapture capture, long nanos) {
+
+        if (!LOGGER.isWarnEnabled()) {
+            return;
+        }
+
+        StringBuilder message = new StringBuilder(error != null ? "Slow query failed: " : "Slow query: ")
+                .append(TimeUnit.NANOSECONDS.toMillis(nanos)).append(" ms")
+                .append(", type: ").append(query.getClass().getSimpleName())
+                .append(", entity: ").append(QueryMetricsFilter.entityName(context, query));
+
+        if (error == null) {
+            message.append(", rows: ").append(QueryMetricsFilter.rowCount(response));
+        }
+
+        message.append(", context: ").append(context);
+
+        statementLines(query, capture).forEach(l -> message.append("\n  ").append(l));
+        if (error != null) {
+            LOGGER.warn(message.toString(), error);
+        } else {
+            LOGGER.warn(message.toString());
+        }
+    }
+
+    /**
+     * Formats captured statements and their parameters for the log. If nothing was captured, takes SQL from the query
+     * itself when possible.
+     */
+    List<String> statementLines(Query query, SqlCapture capture) {
+
+        List<String> lines = new ArrayList<>();
+
+        List<String> statements = capture.getStatements();
+        if (statements.isEmpty()) {
+            appendQuerySql(query, lines);
+            return lines;
+        }
+
+        List<ParameterBinding[]> bindings = capture.getBindings();
+        for (int i = 0; i < statements.size(); i++) {
+            lines.add("SQL: " + statements.get(i));
+
+            if (logParameters) {
+                lines.add("parameters: " + formatParameters(bindings.get(i)));
+            }
+        }
+
+        if (capture.getSkipped() > 0) {
+            lines.add("... " + capture.getSkipped() + " more statement(s)");
+        }
+
+        return lines;
+    }
+
+    List<Object> formatParameters(ParameterBinding[] bindings) {
+
+        List<Object> values = new ArrayList<>(bindings.length);
+        for (ParameterBinding b : bindings) {
+            if (b.isExcluded()) {
+                continue;
+            }
+
+            boolean masked = maskParameters
+                    || (b instanceof DbAttributeBinding
+                    && ((DbAttributeBinding) b).getAttribute() != null
+                    && isMaskedColumn(((DbAttributeBinding) b).getAttribute().getName()));
+
+            values.add(masked ? MASK : b.getValue());
+        }
+
+        return values;
+    }
+
+    private void appendQuerySql(Query query, List<String> lines) {
+
+        String sql;
+        Map<String, ?> params;
+        List<Object> positionalParams;
+
+        if (query instanceof SQLSelect) {
+            SQLSelect<?> select = (SQLSelect<?>) query;
+            sql = select.getSql();
+            params = select.getParams();
+            positionalParams = select.getPositionalParams();
+        } else if (query instanceof SQLExec) {
+            SQLExec exec = (SQLExec) query;
+            sql = exec.getSql();
+            params = exec.getParams();
+            positionalParams = exec.getPositionalParams();
+        } else if (query instanceof SQLTemplate) {
+            SQLTemplate template = (SQLTemplate) query;
+            sql = template.getDefaultTemplate();
+            params = template.getParams();
+            positionalParams = template.getPositionalParams();
+        } else {
+            return;
+        }
+
+        lines.add("SQL: " + sql);
+
+        if (logParameters) {
+            if (params != null && !params.isEmpty()) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                params.forEach((k, v) -> values.put(k, maskParameters || isMaskedColumn(k) ? MASK : v));
+                lines.add("parameters: " + values);
+            } else if (positionalParams != null && !positionalParams.isEmpty()) {
+
+                // no names to match against the masked columns
+                List<Object> values = new ArrayList<>(positionalParams.size());
+                positionalParams.forEach(v -> values.add(maskParameters ? MASK : v));
+                lines.add("parameters: " + values);
+            }
+        }
+    }
+
+    private boolean isMaskedColumn(String name) {
+        return !maskedColumns.isEmpty() && maskedColumns.contains(name.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import org.apache.cayenne.access.translator.ParameterBinding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects SQL statements executed by the current thread while a {@link SlowQueryLogFilter} is running a query. The
+ * statements are reported by {@link CapturingJdbcEventLogger}. SQL and parameter bindings are stored by reference,
+ * and are only formatted if the query turns out to be slow.
+ *
+ * @since 2.0.B1
+ */
+class SqlCapture {
+
+    // protects the memory from the queries with many prefetches or paginated queries
+    static final int MAX_STATEMENTS = 20;
+
+    private static final ThreadLocal<SqlCapture> CURRENT = new ThreadLocal<>();
+
+    private final boolean captureParameters;
+    private final List<String> statements;
+    private final List<ParameterBinding[]> bindings;
+    private int skipped;
+
+    SqlCapture(boolean captureParameters) {
+        this.captureParameters = captureParameters;
+        this.statements = new ArrayList<>(2);
+        this.bindings = captureParameters ? new ArrayList<>(2) : null;
+    }
+
+    static SqlCapture current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Installs this capture for the current thread, returning the previous one that must be passed to
+     * {@link #restore(SqlCapture)} when the query is done.
+     */
+    SqlCapture install() {
+        SqlCapture previous = CURRENT.get();
+        CURRENT.set(this);
+        return previous;
+    }
+
+    static void restore(SqlCapture previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    void add(String sql, ParameterBinding[] bindings) {
+
+        if (statements.size() >= MAX_STATEMENTS) {
+            skipped++;
+            return;
+        }
+
+        statements.add(sql);
+
+        if (captureParameters) {
+            // select translators create new bindings for each statement, so it is safe to keep the reference
+            this.bindings.add(bindings != null ? bindings : new ParameterBinding[0]);
+        }
+    }
+
+    List<String> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Returns parameter bindings of each captured statement, or null if parameters capture is disabled.
+     */
+    List<ParameterBinding[]> getBindings() {
+        return bindings;
+    }
+
+    int getSkipped() {
+        return skipped;
+    }
+}
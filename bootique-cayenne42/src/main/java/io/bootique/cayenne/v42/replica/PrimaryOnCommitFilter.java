@@ -0,0 +1,49 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.replica;
+
+import org.apache.cayenne.DataChannel;
+import org.apache.cayenne.DataChannelSyncFilter;
+import org.apache.cayenne.DataChannelSyncFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.graph.GraphDiff;
+
+/**
+ * A sync filter that makes {@link ReplicaRoutingDataSource} use the primary DataSource for the duration of a commit.
+ * Fails a commit within an explicit transaction that has already read from a replica.
+ *
+ * @since 2.0.B1
+ */
+public class PrimaryOnCommitFilter implements DataChannelSyncFilter {
+
+    @Override
+    public GraphDiff onSync(
+            ObjectContext originatingContext,
+            GraphDiff changes,
+            int syncType,
+            DataChannelSyncFilterChain filterChain) {
+
+        if (syncType != DataChannel.ROLLBACK_CASCADE_SYNC) {
+            ReplicaRoutingDataSource.checkNoReplicaConnections();
+        }
+
+        return ReplicaRoutingDataSource.withPrimary(() -> filterChain.onSync(originatingContext, changes, syncType));
+    }
+}
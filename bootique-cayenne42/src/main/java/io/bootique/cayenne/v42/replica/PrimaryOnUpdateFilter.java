@@ -0,0 +1,75 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.replica;
+
+import org.apache.cayenne.DataChannelQueryFilter;
+import org.apache.cayenne.DataChannelQueryFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.query.FluentSelect;
+import org.apache.cayenne.query.ObjectIdQuery;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.RelationshipQuery;
+import org.apache.cayenne.query.SQLSelect;
+import org.apache.cayenne.query.SQLTemplate;
+
+import java.util.Locale;
+
+/**
+ * A query filter that makes {@link ReplicaRoutingDataSource} use the primary DataSource for all queries, except for
+ * the read-only selects. This prevents the queries that modify data (e.g. {@link org.apache.cayenne.query.SQLExec},
+ * update {@link SQLTemplate}, {@link org.apache.cayenne.query.ProcedureQuery}) from being sent to a read-only
+ * replica. A non-select query within an explicit transaction that has already read from a replica fails.
+ *
+ * @since 2.0.B1
+ */
+public class PrimaryOnUpdateFilter implements DataChannelQueryFilter {
+
+    @Override
+    public QueryResponse onQuery(ObjectContext originatingContext, Query query, DataChannelQueryFilterChain filterChain) {
+        if (isReadOnlySelect(query)) {
+            return filterChain.onQuery(originatingContext, query);
+        }
+
+        ReplicaRoutingDataSource.checkNoReplicaConnections();
+        return ReplicaRoutingDataSource.withPrimary(() -> filterChain.onQuery(originatingContext, query));
+    }
+
+    // deprecated SelectQuery is not imported, as the import would produce a warning not covered by the annotation
+    @SuppressWarnings("deprecation")
+    protected boolean isReadOnlySelect(Query query) {
+
+        if (query instanceof FluentSelect
+                || query instanceof org.apache.cayenne.query.SelectQuery
+                || query instanceof SQLSelect
+                || query instanceof ObjectIdQuery
+                || query instanceof RelationshipQuery) {
+            return true;
+        }
+
+        // SQLTemplate can be anything, so only treating it as a select if the SQL starts with SELECT
+        if (query instanceof SQLTemplate) {
+            String sql = ((SQLTemplate) query).getDefaultTemplate();
+            return sql != null && sql.trim().toUpperCase(Locale.ROOT).startsWith("SELECT");
+        }
+
+        return false;
+    }
+}
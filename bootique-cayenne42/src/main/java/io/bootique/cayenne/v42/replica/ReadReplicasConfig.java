@@ -0,0 +1,60 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.replica;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @since 2.0.B1
+ */
+@BQConfig("Read replicas of a DataSource used by a Cayenne DataNode.")
+public class ReadReplicasConfig {
+
+    private List<String> datasources;
+    private ReplicaSelectionStrategy strategy;
+
+    public ReadReplicasConfig() {
+        this.datasources = new ArrayList<>();
+    }
+
+    public List<String> getDatasources() {
+        return datasources;
+    }
+
+    @BQConfigProperty("Names of the replica DataSources. Each DataSource with this name must be defined in " +
+            "'bootique-jdbc' config.")
+    public void setDatasources(List<String> datasources) {
+        this.datasources = datasources;
+    }
+
+    public ReplicaSelectionStrategy getStrategy() {
+        return strategy != null ? strategy : ReplicaSelectionStrategy.ROUND_ROBIN;
+    }
+
+    @BQConfigProperty("How to pick a replica for a new connection: 'ROUND_ROBIN' or 'LEAST_ACTIVE'. The default is " +
+            "'ROUND_ROBIN'.")
+    public void setStrategy(ReplicaSelectionStrategy strategy) {
+        this.strategy = strategy;
+    }
+}
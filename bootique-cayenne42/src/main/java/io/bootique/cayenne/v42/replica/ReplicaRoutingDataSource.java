@@ -0,0 +1,244 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.replica;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.tx.BaseTransaction;
+import org.apache.cayenne.tx.Transaction;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * A DataSource that sends connection requests to one of the read replicas, unless the calling thread is within a
+ * "primary" scope, in which case the primary DataSource is used. Cayenne commits are placed in the primary scope
+ * by {@link PrimaryOnCommitFilter}. Application code running explicit transactions that mix reads and writes must
+ * wrap them in {@link #withPrimary(Supplier)}, as Cayenne reuses a single connection per DataNode within a transaction.
+ * Otherwise a write that follows a replica read in the same transaction fails (see
+ * {@link #checkNoReplicaConnections()}), instead of being sent to the replica.
+ *
+ * @since 2.0.B1
+ */
+public class ReplicaRoutingDataSource implements DataSource {
+
+    private static final ThreadLocal<int[]> PRIMARY_SCOPE = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ReplicaSelectionStrategy strategy;
+    private final AtomicInteger nextReplica;
+    private final AtomicInteger[] activeConnections;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReplicaSelectionStrategy strategy) {
+
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("No replicas specified");
+        }
+
+        this.primary = primary;
+        this.replicas = replicas;
+        this.strategy = strategy;
+        this.nextReplica = new AtomicInteger();
+        this.activeConnections = new AtomicInteger[replicas.size()];
+        for (int i = 0; i < activeConnections.length; i++) {
+            activeConnections[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Runs an operation, routing all connection requests from the current thread to the primary DataSource.
+     */
+    public static <T> T withPrimary(Supplier<T> op) {
+        int[] depth = PRIMARY_SCOPE.get();
+        depth[0]++;
+        try {
+            return op.get();
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    public static boolean isInPrimaryScope() {
+        return PRIMARY_SCOPE.get()[0] > 0;
+    }
+
+    /**
+     * Throws an exception if the current thread is in a transaction that already holds a replica connection. Called
+     * before the writes, that would otherwise reuse that connection.
+     */
+    public static void checkNoReplicaConnections() {
+
+        Transaction transaction = BaseTransaction.getThreadTransaction();
+        if (transaction == null) {
+            return;
+        }
+
+        for (Connection c : transaction.getConnections().values()) {
+            if (isReplicaConnection(c)) {
+                throw new CayenneRuntimeException("Can't write to a read replica connection. The transaction has " +
+                        "already read from a replica. Wrap transactions that mix reads and writes in " +
+                        "ReplicaRoutingDataSource.withPrimary(..)");
+            }
+        }
+    }
+
+    static boolean isReplicaConnection(Connection connection) {
+
+        // Cayenne wraps transaction connections, but reports the wrapped connection class via "isWrapperFor"
+        try {
+            return connection instanceof ReplicaConnection || connection.isWrapperFor(ReplicaConnection.class);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public List<DataSource> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (isInPrimaryScope()) {
+            return primary.getConnection();
+        }
+
+        int i = selectReplica();
+        return trackActive(replicas.get(i).getConnection(), activeConnections[i]);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (isInPrimaryScope()) {
+            return primary.getConnection(username, password);
+        }
+
+        int i = selectReplica();
+        return trackActive(replicas.get(i).getConnection(username, password), activeConnections[i]);
+    }
+
+    protected int selectReplica() {
+        switch (strategy) {
+            case LEAST_ACTIVE:
+                return leastActiveReplica();
+            case ROUND_ROBIN:
+            default:
+                return (nextReplica.getAndIncrement() & Integer.MAX_VALUE) % replicas.size();
+        }
+    }
+
+    private int leastActiveReplica() {
+
+        // start from a rotating offset, so that ties are spread evenly between the replicas
+        int len = activeConnections.length;
+        int offset = (nextReplica.getAndIncrement() & Integer.MAX_VALUE) % len;
+
+        int best = offset;
+        int bestCount = activeConnections[offset].get();
+        for (int j = 1; j < len && bestCount > 0; j++) {
+            int i = (offset + j) % len;
+            int count = activeConnections[i].get();
+            if (count < bestCount) {
+                best = i;
+                bestCount = count;
+            }
+        }
+
+        return best;
+    }
+
+    private static Connection trackActive(Connection connection, AtomicInteger counter) {
+
+        counter.incrementAndGet();
+        AtomicBoolean closed = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(
+                ReplicaRoutingDataSource.class.getClassLoader(),
+                new Class<?>[]{ReplicaConnection.class},
+                (proxy, method, args) -> {
+
+                    if ("close".equals(method.getName())
+                            && method.getParameterCount() == 0
+                            && closed.compareAndSet(false, true)) {
+                        counter.decrementAndGet();
+                    }
+
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return primary.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    /**
+     * A marker of the connections taken from a replica.
+     */
+    interface ReplicaConnection extends Connection {
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.replica;
+
+/**
+ * Defines how a read replica is chosen for a new connection.
+ *
+ * @since 2.0.B1
+ */
+public enum ReplicaSelectionStrategy {
+
+    /**
+     * Replicas are used in turns.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * A replica with the fewest connections currently checked out by Cayenne is used.
+     */
+    LEAST_ACTIVE
+}
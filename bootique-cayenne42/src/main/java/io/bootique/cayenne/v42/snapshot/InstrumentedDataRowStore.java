@@ -0,0 +1,87 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.snapshot;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.access.DataRowStore;
+import org.apache.cayenne.access.event.SnapshotEvent;
+import org.apache.cayenne.configuration.RuntimeProperties;
+import org.apache.cayenne.event.EventBridge;
+import org.apache.cayenne.event.EventManager;
+
+/**
+ * A {@link DataRowStore} that records {@link SnapshotCacheStats} and supports snapshot expiration.
+ *
+ * @since 2.0.B1
+ */
+public class InstrumentedDataRowStore extends DataRowStore {
+
+    private final SnapshotCacheStats stats;
+
+    public InstrumentedDataRowStore(
+            String name,
+            RuntimeProperties properties,
+            EventManager eventManager,
+            SnapshotCacheStats stats,
+            long expirationNanos) {
+
+        super(name, properties, eventManager);
+        this.stats = stats;
+
+        // replacing the map created by the superclass, preserving its max size
+        this.snapshots = new SnapshotMap(maximumSize(), expirationNanos, stats);
+    }
+
+    @Override
+    public DataRow getCachedSnapshot(ObjectId oid) {
+        DataRow row = super.getCachedSnapshot(oid);
+
+        if (row != null) {
+            stats.recordHit();
+        } else {
+            stats.recordMiss();
+        }
+
+        return row;
+    }
+
+    /**
+     * Connects this store to a cross-VM EventBridge. Replicates what Cayenne DefaultDataRowStoreFactory does for the
+     * standard DataRowStore, as the corresponding DataRowStore method is not accessible outside of its package.
+     */
+    void startEventBridge(EventBridge eventBridge) {
+        setEventBridge(eventBridge);
+
+        try {
+            eventManager.addNonBlockingListener(
+                    this,
+                    "processRemoteEvent",
+                    SnapshotEvent.class,
+                    getSnapshotEventSubject(),
+                    remoteNotificationsHandler);
+
+            remoteNotificationsHandler.startup(eventManager, EventBridge.RECEIVE_LOCAL_EXTERNAL);
+        } catch (Exception e) {
+            throw new CayenneRuntimeException("Error initializing DataRowStore.", e);
+        }
+    }
+}
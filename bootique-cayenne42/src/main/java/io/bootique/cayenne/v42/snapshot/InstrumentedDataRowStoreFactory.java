@@ -0,0 +1,75 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.snapshot;
+
+import org.apache.cayenne.access.DataRowStore;
+import org.apache.cayenne.access.DataRowStoreFactory;
+import org.apache.cayenne.configuration.RuntimeProperties;
+import org.apache.cayenne.di.Inject;
+import org.apache.cayenne.di.Provider;
+import org.apache.cayenne.event.EventBridge;
+import org.apache.cayenne.event.EventManager;
+import org.apache.cayenne.event.NoopEventBridge;
+
+/**
+ * A {@link DataRowStoreFactory} creating {@link InstrumentedDataRowStore} instances.
+ *
+ * @since 2.0.B1
+ */
+public class InstrumentedDataRowStoreFactory implements DataRowStoreFactory {
+
+    private final Provider<EventBridge> eventBridgeProvider;
+    private final EventManager eventManager;
+    private final RuntimeProperties properties;
+    private final SnapshotCacheStats stats;
+    private final SnapshotCacheSettings settings;
+
+    public InstrumentedDataRowStoreFactory(
+            @Inject Provider<EventBridge> eventBridgeProvider,
+            @Inject EventManager eventManager,
+            @Inject RuntimeProperties properties,
+            @Inject SnapshotCacheStats stats,
+            @Inject SnapshotCacheSettings settings) {
+
+        this.eventBridgeProvider = eventBridgeProvider;
+        this.eventManager = eventManager;
+        this.properties = properties;
+        this.stats = stats;
+        this.settings = settings;
+    }
+
+    @Override
+    public DataRowStore createDataRowStore(String name) {
+
+        InstrumentedDataRowStore store = new InstrumentedDataRowStore(
+                name,
+                properties,
+                eventManager,
+                stats,
+                settings.getExpirationNanos());
+
+        EventBridge eventBridge = eventBridgeProvider.get();
+        if (!(eventBridge instanceof NoopEventBridge)) {
+            store.startEventBridge(eventBridge);
+        }
+
+        return store;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.snapshot;
+
+import io.bootique.annotation.BQConfig;
+import io.bootique.annotation.BQConfigProperty;
+import io.bootique.value.Duration;
+import org.apache.cayenne.access.DataRowStoreFactory;
+import org.apache.cayenne.configuration.Constants;
+import org.apache.cayenne.configuration.server.ServerModule;
+import org.apache.cayenne.di.Module;
+
+/**
+ * @since 2.0.B1
+ */
+@BQConfig("Configures Cayenne shared snapshot cache")
+public class SnapshotCacheFactory {
+
+    private Integer maxSize;
+    private Duration expiration;
+
+    public Module createModule(SnapshotCacheStats stats) {
+
+        SnapshotCacheSettings settings = new SnapshotCacheSettings(
+                expiration != null ? expiration.getDuration().toNanos() : 0L);
+
+        return b -> {
+            if (maxSize != null) {
+                ServerModule.contributeProperties(b).put(Constants.SNAPSHOT_CACHE_SIZE_PROPERTY, String.valueOf(maxSize));
+            }
+
+            b.bind(SnapshotCacheStats.class).toInstance(stats);
+            b.bind(SnapshotCacheSettings.class).toInstance(settings);
+            b.bind(DataRowStoreFactory.class).to(InstrumentedDataRowStoreFactory.class);
+        };
+    }
+
+    @BQConfigProperty("Max number of snapshots in the cache. When exceeded, the least recently used snapshots are " +
+            "evicted. The default is 10000.")
+    public void setMaxSize(Integer maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @BQConfigProperty("An optional max age of a cached snapshot. Older snapshots are discarded on access, and " +
+            "re-fetched from the database when needed. If not set, snapshots do not expire.")
+    public void setExpiration(Duration expiration) {
+        this.expiration = expiration;
+    }
+}
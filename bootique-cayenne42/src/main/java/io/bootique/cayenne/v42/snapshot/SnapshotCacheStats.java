@@ -0,0 +1,113 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.snapshot;
+
+import org.apache.cayenne.access.DataRowStore;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of the Cayenne shared snapshot cache (aka {@link DataRowStore}). Hits and misses are counted on
+ * snapshot lookups by ObjectId, evictions are the snapshots removed to stay within the max size, and expirations
+ * are the snapshots discarded on lookup as they were older than the configured expiration.
+ *
+ * @since 2.0.B1
+ */
+public class SnapshotCacheStats {
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder expirations;
+
+    private volatile SnapshotMap snapshots;
+
+    public SnapshotCacheStats() {
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.expirations = new LongAdder();
+    }
+
+    void setSnapshots(SnapshotMap snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordExpiration() {
+        expirations.increment();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns a ratio of hits to all lookups, or zero if there were no lookups yet.
+     */
+    public double getHitRatio() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total > 0 ? (double) hits / total : 0.;
+    }
+
+    public long getEvictions() {
+        SnapshotMap snapshots = this.snapshots;
+        return snapshots != null ? snapshots.evictions() : 0;
+    }
+
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    /**
+     * Returns the current number of snapshots in the cache, or zero if Cayenne stack is not started yet.
+     */
+    public int getSize() {
+        SnapshotMap snapshots = this.snapshots;
+        return snapshots != null ? snapshots.size() : 0;
+    }
+
+    /**
+     * Returns the max number of snapshots in the cache, or zero if Cayenne stack is not started yet.
+     */
+    public long getMaxSize() {
+        SnapshotMap snapshots = this.snapshots;
+        return snapshots != null ? snapshots.capacity() : 0;
+    }
+
+    /**
+     * Resets hit, miss and expiration counters. Evictions are derived from the cache state and are not reset.
+     */
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        expirations.reset();
+    }
+}
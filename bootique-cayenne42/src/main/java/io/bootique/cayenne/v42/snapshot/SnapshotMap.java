@@ -0,0 +1,220 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.snapshot;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.util.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded LRU map of snapshots, same as the one used by Cayenne DataRowStore, that additionally counts evictions
+ * and expires snapshots older than a given age. Expired snapshots are removed lazily, on lookup.
+ * <p>
+ * Cayenne's copy of ConcurrentLinkedHashMap does not expose its eviction listener, so evictions are calculated as the
+ * number of added entries that are neither in the map nor were explicitly removed from it.
+ */
+class SnapshotMap extends AbstractMap<ObjectId, DataRow> implements ConcurrentMap<ObjectId, DataRow> {
+
+    private final ConcurrentLinkedHashMap<ObjectId, Entry> entries;
+    private final long expirationNanos;
+    private final SnapshotCacheStats stats;
+    private final LongAdder added;
+    private final LongAdder removed;
+
+    SnapshotMap(int maxSize, long expirationNanos, SnapshotCacheStats stats) {
+        this.expirationNanos = expirationNanos;
+        this.stats = stats;
+        this.added = new LongAdder();
+        this.removed = new LongAdder();
+        this.entries = new ConcurrentLinkedHashMap.Builder<ObjectId, Entry>()
+                .maximumWeightedCapacity(maxSize)
+                .build();
+
+        stats.setSnapshots(this);
+    }
+
+    long evictions() {
+        return Math.max(0, added.sum() - removed.sum() - entries.size());
+    }
+
+    long capacity() {
+        return entries.capacity();
+    }
+
+    @Override
+    public DataRow get(Object key) {
+        Entry e = entries.get(key);
+        if (e == null) {
+            return null;
+        }
+
+        if (expirationNanos > 0 && nanoTime() - e.createdNanos > expirationNanos) {
+            if (entries.remove(key, e)) {
+                removed.increment();
+                stats.recordExpiration();
+            }
+
+            return null;
+        }
+
+        return e.row;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public DataRow put(ObjectId key, DataRow value) {
+        return added(entries.put(key, new Entry(value, nanoTime())));
+    }
+
+    @Override
+    public DataRow putIfAbsent(ObjectId key, DataRow value) {
+        return added(entries.putIfAbsent(key, new Entry(value, nanoTime())));
+    }
+
+    @Override
+    public DataRow remove(Object key) {
+        return removed(entries.remove(key));
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        Entry e = entries.get(key);
+        if (e != null && Objects.equals(e.row, value) && entries.remove(key, e)) {
+            removed.increment();
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean replace(ObjectId key, DataRow oldValue, DataRow newValue) {
+        Entry e = entries.get(key);
+        return e != null && Objects.equals(e.row, oldValue) && entries.replace(key, e, new Entry(newValue, nanoTime()));
+    }
+
+    @Override
+    public DataRow replace(ObjectId key, DataRow value) {
+        return unwrap(entries.replace(key, new Entry(value, nanoTime())));
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        // not atomic, so the eviction count may drift slightly under concurrent updates
+        removed.add(entries.size());
+        entries.clear();
+    }
+
+    @Override
+    public Set<Map.Entry<ObjectId, DataRow>> entrySet() {
+        return new AbstractSet<Map.Entry<ObjectId, DataRow>>() {
+
+            @Override
+            public Iterator<Map.Entry<ObjectId, DataRow>> iterator() {
+                Iterator<Map.Entry<ObjectId, Entry>> it = entries.entrySet().iterator();
+                return new Iterator<Map.Entry<ObjectId, DataRow>>() {
+
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Map.Entry<ObjectId, DataRow> next() {
+                        Map.Entry<ObjectId, Entry> e = it.next();
+                        return new SimpleImmutableEntry<>(e.getKey(), e.getValue().row);
+                    }
+
+                    @Override
+                    public void remove() {
+                        it.remove();
+                        removed.increment();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    private DataRow added(Entry previous) {
+        if (previous == null) {
+            added.increment();
+        }
+
+        return unwrap(previous);
+    }
+
+    private DataRow removed(Entry previous) {
+        if (previous != null) {
+            removed.increment();
+        }
+
+        return unwrap(previous);
+    }
+
+    /**
+     * Returns the current time used to expire the entries. Overridden in tests.
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private static DataRow unwrap(Entry e) {
+        return e != null ? e.row : null;
+    }
+
+    static class Entry {
+
+        final DataRow row;
+        final long createdNanos;
+
+        Entry(DataRow row, long createdNanos) {
+            this.row = row;
+            this.createdNanos = createdNanos;
+        }
+    }
+}
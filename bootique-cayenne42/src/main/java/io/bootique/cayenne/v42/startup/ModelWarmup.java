@@ -0,0 +1,135 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.startup;
+
+import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.map.EntityResolver;
+import org.apache.cayenne.map.ObjEntity;
+import org.apache.cayenne.reflect.AttributeProperty;
+import org.apache.cayenne.reflect.ClassDescriptor;
+import org.apache.cayenne.reflect.PropertyVisitor;
+import org.apache.cayenne.reflect.ToManyProperty;
+import org.apache.cayenne.reflect.ToOneProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Eagerly builds the parts of Cayenne model metadata that are otherwise created lazily on first access to each
+ * entity: class descriptors with their property accessors, lifecycle callback registry and the entity sorter
+ * indexes used for commit ordering. Descriptors are resolved in parallel.
+ *
+ * @since 2.0.B1
+ */
+public class ModelWarmup {
+
+    private final int threads;
+
+    public ModelWarmup() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ModelWarmup(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Warms up the model of the runtime, starting its DataDomain if needed.
+     *
+     * @return the number of warmed up entity descriptors
+     */
+    public int warmUp(ServerRuntime runtime) {
+
+        DataDomain domain = runtime.getDataDomain();
+        EntityResolver resolver = domain.getEntityResolver();
+
+        // ClassDescriptorMap is not thread-safe, so registering (still lazy) descriptors in a single thread...
+        List<ClassDescriptor> descriptors = new ArrayList<>();
+        for (ObjEntity e : resolver.getObjEntities()) {
+            descriptors.add(resolver.getClassDescriptor(e.getName()));
+        }
+
+        // ... and only resolving them in parallel
+        resolveDescriptors(descriptors);
+
+        resolver.getCallbackRegistry();
+        domain.getEntitySorter().sortDbEntities(new ArrayList<>(resolver.getDbEntities()), false);
+
+        return descriptors.size();
+    }
+
+    protected void resolveDescriptors(List<ClassDescriptor> descriptors) {
+
+        int poolSize = Math.min(descriptors.size(), threads);
+        if (poolSize <= 1) {
+            descriptors.forEach(ModelWarmup::resolveDescriptor);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            List<Future<?>> futures = new ArrayList<>(descriptors.size());
+            for (ClassDescriptor d : descriptors) {
+                futures.add(executor.submit(() -> resolveDescriptor(d)));
+            }
+
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while warming up Cayenne model", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException
+                    ? (RuntimeException) cause
+                    : new IllegalStateException("Error warming up Cayenne model", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void resolveDescriptor(ClassDescriptor descriptor) {
+
+        // visiting all properties (including subclass properties) forces the lazy descriptor to be built
+        descriptor.visitAllProperties(new PropertyVisitor() {
+
+            @Override
+            public boolean visitAttribute(AttributeProperty property) {
+                return true;
+            }
+
+            @Override
+            public boolean visitToOne(ToOneProperty property) {
+                return true;
+            }
+
+            @Override
+            public boolean visitToMany(ToManyProperty property) {
+                return true;
+            }
+        });
+    }
+}
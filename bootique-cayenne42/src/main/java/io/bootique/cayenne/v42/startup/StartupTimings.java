@@ -0,0 +1,149 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.startup;
+
+import io.bootique.log.BootLogger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records the time spent in each phase of Cayenne stack startup. Phases are recorded as they complete, so the
+ * DataDomain phases only appear once the DataDomain is first accessed. A phase executed more than once (e.g. a
+ * startup of each DataNode) accumulates its time. Each recorded phase is also reported to the {@link BootLogger}
+ * (at the "trace" level), if one is provided.
+ *
+ * @since 2.0.B1
+ */
+public class StartupTimings {
+
+    /**
+     * Merging Cayenne project locations from the config and from DI.
+     */
+    public static final String CONFIG_MERGE = "configMerge";
+
+    /**
+     * Building the ServerRuntime and its DI container.
+     */
+    public static final String RUNTIME_ASSEMBLY = "runtimeAssembly";
+
+    /**
+     * Loading and merging the project descriptors and DataMaps, either from XML or from the model snapshot.
+     */
+    public static final String DESCRIPTOR_LOADING = "descriptorLoading";
+
+    /**
+     * Creating DataNodes, including DataSource (connection pool) startup and DbAdapter detection.
+     */
+    public static final String DATA_NODES = "dataNodes";
+
+    /**
+     * The entire DataDomain creation, including descriptor loading and DataNodes.
+     */
+    public static final String DATA_DOMAIN = "dataDomain";
+
+    /**
+     * Eager model warm-up, if enabled.
+     */
+    public static final String MODEL_WARMUP = "modelWarmup";
+
+    /**
+     * Registering listeners with the DataDomain.
+     */
+    public static final String LISTENERS = "listeners";
+
+    private final BootLogger logger;
+    private final Map<String, Long> phases;
+
+    public StartupTimings() {
+        this(null);
+    }
+
+    public StartupTimings(BootLogger logger) {
+        this.logger = logger;
+        this.phases = new LinkedHashMap<>();
+    }
+
+    public <T> T time(String phase, Supplier<T> op) {
+        long start = System.nanoTime();
+        try {
+            return op.get();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    public void time(String phase, Runnable op) {
+        long start = System.nanoTime();
+        try {
+            op.run();
+        } finally {
+            record(phase, System.nanoTime() - start);
+        }
+    }
+
+    public void record(String phase, long nanos) {
+
+        synchronized (phases) {
+            phases.merge(phase, nanos, Long::sum);
+        }
+
+        if (logger != null) {
+            logger.trace(() -> String.format("Cayenne startup phase '%s' took %.2f ms", phase, nanos / 1_000_000.));
+        }
+    }
+
+    /**
+     * Returns the time spent in each of the phases recorded so far, in the order the phases were first recorded.
+     */
+    public Map<String, Long> getPhaseNanos() {
+        synchronized (phases) {
+            return new LinkedHashMap<>(phases);
+        }
+    }
+
+    public long getPhaseMillis(String phase) {
+        Long nanos;
+        synchronized (phases) {
+            nanos = phases.get(phase);
+        }
+
+        return nanos != null ? TimeUnit.NANOSECONDS.toMillis(nanos) : 0L;
+    }
+
+    /**
+     * Returns a one-line human-readable report of the phases recorded so far.
+     */
+    public String getReport() {
+
+        StringBuilder report = new StringBuilder("Cayenne startup:");
+        getPhaseNanos().forEach((p, n) -> report.append(' ').append(p).append('=')
+                .append(String.format("%.2f", n / 1_000_000.)).append("ms"));
+
+        return report.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getReport();
+    }
+}
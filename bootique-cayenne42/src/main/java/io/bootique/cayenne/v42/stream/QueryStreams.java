@@ -0,0 +1,158 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.stream;
+
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ResultBatchIterator;
+import org.apache.cayenne.ResultIterator;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.SQLSelect;
+import org.apache.cayenne.query.Select;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Provides query results as lazy {@link Stream Streams} backed by Cayenne {@link ResultIterator}, so that large
+ * results can be processed with a constant memory footprint. Each stream holds an open JDBC connection until it is
+ * either fully consumed or closed, so the callers should consume streams within try-with-resources. Backpressure is
+ * inherent to the pull-based streams: rows are read from the ResultSet only as fast as the stream is consumed.
+ *
+ * <p>If a query doesn't specify its own JDBC statement fetch size, the configured default is applied to
+ * {@link ObjectSelect} and {@link SQLSelect} queries (modifying the query instance).</p>
+ *
+ * @since 2.0.B1
+ */
+public class QueryStreams {
+
+    private final int defaultFetchSize;
+
+    public QueryStreams(int defaultFetchSize) {
+        this.defaultFetchSize = defaultFetchSize;
+    }
+
+    public int getDefaultFetchSize() {
+        return defaultFetchSize;
+    }
+
+    /**
+     * Returns a stream of query results, one object (or DataRow, or scalar) at a time.
+     */
+    public <T> Stream<T> stream(ObjectContext context, Select<T> query) {
+        ResultIterator<T> it = withFetchSize(context, query).iterator(context);
+        return toStream(new ClosingIterator<>(it, it::hasNextRow, it::nextRow));
+    }
+
+    /**
+     * Returns a stream of query result batches. Useful for export jobs that process rows in chunks, e.g. writing
+     * each chunk and then discarding its objects.
+     */
+    public <T> Stream<List<T>> streamBatches(ObjectContext context, Select<T> query, int batchSize) {
+        ResultBatchIterator<T> it = withFetchSize(context, query).batchIterator(context, batchSize);
+        return toStream(new ClosingIterator<>(it, it::hasNext, it::next));
+    }
+
+    protected <T> Select<T> withFetchSize(ObjectContext context, Select<T> query) {
+
+        if (defaultFetchSize <= 0 || query.getMetaData(context.getEntityResolver()).getStatementFetchSize() > 0) {
+            return query;
+        }
+
+        if (query instanceof ObjectSelect) {
+            ((ObjectSelect<T>) query).statementFetchSize(defaultFetchSize);
+        } else if (query instanceof SQLSelect) {
+            ((SQLSelect<T>) query).statementFetchSize(defaultFetchSize);
+        }
+
+        return query;
+    }
+
+    private static <T> Stream<T> toStream(ClosingIterator<T> it) {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(it::close);
+    }
+
+    /**
+     * Releases the JDBC resources as soon as the last row is read, so that fully consumed streams do not leak
+     * connections even if they are not closed explicitly.
+     */
+    static class ClosingIterator<T> implements Iterator<T> {
+
+        private final AutoCloseable resource;
+        private final BooleanSupplier hasNext;
+        private final Supplier<T> next;
+        private boolean closed;
+
+        ClosingIterator(AutoCloseable resource, BooleanSupplier hasNext, Supplier<T> next) {
+            this.resource = resource;
+            this.hasNext = hasNext;
+            this.next = next;
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            if (closed) {
+                return false;
+            }
+
+            if (hasNext.getAsBoolean()) {
+                return true;
+            }
+
+            close();
+            return false;
+        }
+
+        // must be idempotent, as Cayenne commits the iterator transaction on close
+        void close() {
+
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+            try {
+                resource.close();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CayenneRuntimeException("Error closing result iterator", e);
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return next.get();
+        }
+    }
+}
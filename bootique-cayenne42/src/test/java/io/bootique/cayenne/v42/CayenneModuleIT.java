@@ -19,7 +19,9 @@
 
 package io.bootique.cayenne.v42;
 
+import io.bootique.BQRuntime;
 import io.bootique.di.BQModule;
+import io.bootique.jdbc.DataSourceFactory;
 import io.bootique.junit5.BQTest;
 import io.bootique.junit5.BQTestFactory;
 import io.bootique.junit5.BQTestTool;
@@ -91,6 +93,50 @@ public class CayenneModuleIT {
         SQLSelect.dataRowQuery("map2", "SELECT * FROM db_entity2").select(runtime.newContext());
     }
 
+    @Test
+    public void testConfig_ExplicitMaps_ParallelLoading() {
+
+        ServerRuntime runtime = testFactory.app("--config=classpath:config_explicit_maps_parallel.yml")
+                .autoLoadModules()
+                .createRuntime()
+                .getInstance(ServerRuntime.class);
+
+        DataDomain domain = runtime.getDataDomain();
+        assertEquals(3, domain.getDataMaps().size());
+        assertNotNull(domain.getEntityResolver().getDbEntity("db_entity"));
+        assertNotNull(domain.getEntityResolver().getDbEntity("db_entity2"));
+        assertNotNull(domain.getEntityResolver().getDbEntity("db_entity3"));
+
+        assertEquals(1, domain.getDataNodes().size());
+        assertSame(domain.getDataNode("ds_node"), domain.lookupDataNode(domain.getDataMap("map1")));
+        assertSame(domain.getDataNode("ds_node"), domain.lookupDataNode(domain.getDataMap("map3")));
+
+        // trigger a DB op
+        SQLSelect.dataRowQuery("map1", "SELECT * FROM db_entity").select(runtime.newContext());
+        SQLSelect.dataRowQuery("map3", "SELECT * FROM db_entity3").select(runtime.newContext());
+    }
+
+    @Test
+    public void testConfig_LazyDataSources() {
+
+        BQRuntime bqRuntime = testFactory.app("--config=classpath:config_lazy_datasources.yml")
+                .autoLoadModules()
+                .createRuntime();
+
+        ServerRuntime runtime = bqRuntime.getInstance(ServerRuntime.class);
+        DataSourceFactory dataSourceFactory = bqRuntime.getInstance(DataSourceFactory.class);
+
+        DataDomain domain = runtime.getDataDomain();
+        assertEquals(2, domain.getDataNodes().size());
+        assertFalse(dataSourceFactory.isStarted("ds1"));
+        assertFalse(dataSourceFactory.isStarted("ds2"));
+
+        // trigger a DB op on one of the nodes
+        SQLSelect.dataRowQuery("map1", "SELECT * FROM db_entity").select(runtime.newContext());
+        assertTrue(dataSourceFactory.isStarted("ds1"));
+        assertFalse(dataSourceFactory.isStarted("ds2"));
+    }
+
     @Test
     public void testDefaultDataSource() throws SQLException {
 
@@ -141,6 +187,22 @@ public class CayenneModuleIT {
         }
     }
 
+    @Test
+    public void testStartupListener() {
+
+        ServerRuntime[] started = new ServerRuntime[1];
+        BQRuntime bqRuntime = testFactory.app("--config=classpath:noconfig.yml")
+                .autoLoadModules()
+                .module(b -> CayenneModule.extend(b).addStartupListener(r -> started[0] = r))
+                .createRuntime();
+
+        // called when Cayenne is started, not when the app is
+        assertNull(started[0]);
+
+        ServerRuntime runtime = bqRuntime.getInstance(ServerRuntime.class);
+        assertSame(runtime, started[0]);
+    }
+
     @Test
     public void testNoConfig() {
 
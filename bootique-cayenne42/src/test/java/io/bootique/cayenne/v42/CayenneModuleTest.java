@@ -0,0 +1,85 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42;
+
+import io.bootique.cayenne.v42.annotation.CayenneConfigs;
+import io.bootique.cayenne.v42.annotation.CayenneListener;
+import io.bootique.di.Provides;
+import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.log.BootLogger;
+import io.bootique.shutdown.ShutdownManager;
+import org.apache.cayenne.DataChannelQueryFilter;
+import org.apache.cayenne.DataChannelSyncFilter;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.di.Module;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CayenneModuleTest {
+
+    @Test
+    public void testCreateCayenneRuntime_Overridable() {
+
+        // app subclasses override the runtime provider with its original signature (this class won't compile if the
+        // signature changes), and DI must still see a single provider
+        int runtimeProviders = 0;
+        for (Method m : SubclassedModule.class.getDeclaredMethods()) {
+            if (m.isAnnotationPresent(Provides.class) && m.getReturnType() == ServerRuntime.class) {
+                runtimeProviders++;
+            }
+        }
+
+        assertEquals(1, runtimeProviders);
+    }
+
+    static class SubclassedModule extends CayenneModule {
+
+        @Override
+        @Provides
+        protected ServerRuntime createCayenneRuntime(
+                ServerRuntimeFactory serverRuntimeFactory,
+                DataSourceFactory dataSourceFactory,
+                BootLogger bootLogger,
+                ShutdownManager shutdownManager,
+                Set<Module> customModules,
+                @CayenneListener Set<Object> listeners,
+                Set<DataChannelQueryFilter> queryFilters,
+                Set<DataChannelSyncFilter> syncFilters,
+                CayenneConfigMerger configMerger,
+                @CayenneConfigs Set<String> injectedCayenneConfigs) {
+
+            return super.createCayenneRuntime(
+                    serverRuntimeFactory,
+                    dataSourceFactory,
+                    bootLogger,
+                    shutdownManager,
+                    customModules,
+                    listeners,
+                    queryFilters,
+                    syncFilters,
+                    configMerger,
+                    injectedCayenneConfigs);
+        }
+    }
+}
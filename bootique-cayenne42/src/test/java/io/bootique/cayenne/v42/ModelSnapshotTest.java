@@ -0,0 +1,136 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42;
+
+import org.apache.cayenne.configuration.DataChannelDescriptor;
+import org.apache.cayenne.map.DataMap;
+import org.apache.cayenne.map.DbEntity;
+import org.apache.cayenne.resource.URLResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModelSnapshotTest {
+
+    private Path dir;
+
+    @BeforeEach
+    public void before() throws IOException {
+        this.dir = Paths.get("target/snapshots/ModelSnapshotTest");
+        Files.createDirectories(dir);
+    }
+
+    private DataChannelDescriptor descriptor(Path source) throws IOException {
+        DataMap map = new DataMap("m1");
+        map.addDbEntity(new DbEntity("e1"));
+        map.setConfigurationSource(new URLResource(source.toUri().toURL()));
+
+        DataChannelDescriptor descriptor = new DataChannelDescriptor();
+        descriptor.setName("d1");
+        descriptor.getDataMaps().add(map);
+        return descriptor;
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+        Path source = Files.write(dir.resolve("testWriteRead.map.xml"), "v1".getBytes(StandardCharsets.UTF_8));
+        ModelSnapshot snapshot = new ModelSnapshot(dir.resolve("testWriteRead.bin").toString());
+
+        snapshot.write("k1", descriptor(source), Collections.emptyList());
+
+        DataChannelDescriptor read = snapshot.read("k1");
+        assertNotNull(read);
+        assertEquals("d1", read.getName());
+        assertNotNull(read.getDataMap("m1").getDbEntity("e1"));
+        assertEquals(source.toUri().toURL(), read.getDataMap("m1").getConfigurationSource().getURL());
+    }
+
+    @Test
+    public void testRead_KeyChanged() throws IOException {
+        Path source = Files.write(dir.resolve("testRead_KeyChanged.map.xml"), "v1".getBytes(StandardCharsets.UTF_8));
+        ModelSnapshot snapshot = new ModelSnapshot(dir.resolve("testRead_KeyChanged.bin").toString());
+
+        snapshot.write("k1", descriptor(source), Collections.emptyList());
+        assertNull(snapshot.read("k2"));
+    }
+
+    @Test
+    public void testRead_SourceChanged() throws IOException {
+        Path source = Files.write(dir.resolve("testRead_SourceChanged.map.xml"), "v1".getBytes(StandardCharsets.UTF_8));
+        ModelSnapshot snapshot = new ModelSnapshot(dir.resolve("testRead_SourceChanged.bin").toString());
+
+        snapshot.write("k1", descriptor(source), Collections.emptyList());
+        Files.write(source, "v2".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(snapshot.read("k1"));
+    }
+
+    @Test
+    public void testRead_Missing() {
+        ModelSnapshot snapshot = new ModelSnapshot(dir.resolve("testRead_Missing.bin").toString());
+        assertNull(snapshot.read("k1"));
+    }
+
+    @Test
+    public void testRead_DisallowedClass() throws IOException {
+        Path file = dir.resolve("testRead_DisallowedClass.bin");
+        try (ObjectOutputStream out = new ObjectOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(1);
+            out.writeObject("k1");
+            out.writeObject(Collections.singletonMap("m1", new Foreign()));
+        }
+
+        ModelSnapshot snapshot = new ModelSnapshot(file.toString());
+        assertNull(snapshot.read("k1"));
+        assertFalse(Foreign.created);
+    }
+
+    @Test
+    public void testIsAllowed() {
+        assertTrue(ModelSnapshot.SnapshotInputStream.isAllowed("java.util.HashMap"));
+        assertTrue(ModelSnapshot.SnapshotInputStream.isAllowed("org.apache.cayenne.map.DataMap"));
+        assertTrue(ModelSnapshot.SnapshotInputStream.isAllowed("[B"));
+        assertTrue(ModelSnapshot.SnapshotInputStream.isAllowed("[[Ljava.lang.String;"));
+        assertFalse(ModelSnapshot.SnapshotInputStream.isAllowed(Foreign.class.getName()));
+        assertFalse(ModelSnapshot.SnapshotInputStream.isAllowed("[L" + Foreign.class.getName() + ";"));
+        assertFalse(ModelSnapshot.SnapshotInputStream.isAllowed("org.apache.cayennex.Foo"));
+    }
+
+    static class Foreign implements Serializable {
+
+        static volatile boolean created;
+
+        private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
+            created = true;
+            in.defaultReadObject();
+        }
+    }
+}
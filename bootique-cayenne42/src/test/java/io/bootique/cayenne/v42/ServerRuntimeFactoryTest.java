@@ -21,13 +21,23 @@ package io.bootique.cayenne.v42;
 
 import io.bootique.cayenne.v42.CayenneConfigMerger;
 import io.bootique.cayenne.v42.ServerRuntimeFactory;
+import io.bootique.cayenne.v42.cache.SingleFlightQueryCache;
+import io.bootique.cayenne.v42.startup.StartupTimings;
 import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.value.Duration;
 import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.cache.QueryCache;
+import org.apache.cayenne.configuration.RuntimeProperties;
 import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.reflect.ClassDescriptor;
+import org.apache.cayenne.reflect.LazyClassDescriptorDecorator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.sql.DataSource;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collections;
 
 import static java.util.Arrays.asList;
@@ -139,4 +149,154 @@ public class ServerRuntimeFactoryTest {
 			runtime.shutdown();
 		}
 	}
+
+	@Test
+	public void testCreateCayenneRuntime_ModelSnapshot() {
+
+		File snapshot = new File("target/snapshots/testCreateCayenneRuntime_ModelSnapshot.bin");
+		snapshot.delete();
+
+		ServerRuntimeFactory factory = new ServerRuntimeFactory();
+		factory.setDatasource("ds1");
+		factory.setConfigs(asList("cayenne-project2.xml", "cayenne-project1.xml"));
+		factory.setModelSnapshot(snapshot.getPath());
+
+		// 1st run - loading from XML and saving the snapshot; 2nd run - loading from the snapshot
+		for (int i = 0; i < 2; i++) {
+			ServerRuntime runtime = factory.createCayenneRuntime(
+					mockDSFactory,
+					configMerger,
+					Collections.emptyList(),
+					Collections.emptyList());
+			try {
+
+				DataDomain domain = runtime.getDataDomain();
+				assertTrue(snapshot.isFile());
+				assertEquals(i, runtime.getInjector().getInstance(ModelSnapshot.class).getSuccessfulReads(),
+						"Unexpected snapshot loading on run " + i);
+				assertNotNull(domain.getEntityResolver().getDbEntity("db_entity"));
+				assertNotNull(domain.getEntityResolver().getDbEntity("db_entity2"));
+				assertEquals(1, domain.getDataNodes().size());
+
+			} finally {
+				runtime.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void testCreateCayenneRuntime_NullReplicas() {
+		ServerRuntimeFactory factory = new ServerRuntimeFactory();
+		factory.setDatasource("ds1");
+		factory.setReplicas(null);
+
+		ServerRuntime runtime = factory.createCayenneRuntime(
+				mockDSFactory,
+				configMerger,
+				Collections.emptyList(),
+				Collections.emptyList());
+		try {
+			assertNotNull(runtime.getDataDomain());
+		} finally {
+			runtime.shutdown();
+		}
+	}
+
+	@Test
+	public void testCreateCayenneRuntime_CoalesceQueries() {
+		ServerRuntimeFactory factory = new ServerRuntimeFactory();
+		factory.setDatasource("ds1");
+		factory.setCoalesceQueries(true);
+
+		ServerRuntime runtime = factory.createCayenneRuntime(
+				mockDSFactory,
+				configMerger,
+				Collections.emptyList(),
+				Collections.emptyList());
+		try {
+			assertTrue(runtime.getInjector().getInstance(QueryCache.class) instanceof SingleFlightQueryCache);
+		} finally {
+			runtime.shutdown();
+		}
+	}
+
+	@Test
+	public void testCreateCayenneRuntime_CoalesceTimeout() {
+		ServerRuntimeFactory factory = new ServerRuntimeFactory();
+		factory.setDatasource("ds1");
+		factory.setCoalesceQueries(true);
+		factory.setCoalesceTimeout(new Duration("2s"));
+
+		ServerRuntime runtime = factory.createCayenneRuntime(
+				mockDSFactory,
+				configMerger,
+				Collections.emptyList(),
+				Collections.emptyList());
+		try {
+			assertTrue(runtime.getInjector().getInstance(QueryCache.class) instanceof SingleFlightQueryCache);
+			assertEquals(2000L, runtime.getInjector().getInstance(RuntimeProperties.class)
+					.getLong(SingleFlightQueryCache.WAIT_TIMEOUT_PROPERTY, 0));
+		} finally {
+			runtime.shutdown();
+		}
+	}
+
+	@Test
+	public void testCreateCayenneRuntime_StartupTimings() {
+		ServerRuntimeFactory factory = new ServerRuntimeFactory();
+		factory.setConfigs(asList("cayenne-project1.xml"));
+		factory.setDatasource("ds1");
+
+		StartupTimings timings = new StartupTimings();
+		ServerRuntime runtime = factory.createCayenneRuntime(
+				mockDSFactory,
+				configMerger,
+				Collections.emptyList(),
+				Collections.emptyList(),
+				timings);
+		try {
+			assertEquals(asList(StartupTimings.CONFIG_MERGE, StartupTimings.RUNTIME_ASSEMBLY),
+					new ArrayList<>(timings.getPhaseNanos().keySet()));
+
+			// DataDomain phases are recorded when the domain is created
+			runtime.getDataDomain();
+			assertEquals(asList(
+					StartupTimings.CONFIG_MERGE,
+					StartupTimings.RUNTIME_ASSEMBLY,
+					StartupTimings.DESCRIPTOR_LOADING,
+					StartupTimings.DATA_NODES,
+					StartupTimings.DATA_DOMAIN), new ArrayList<>(timings.getPhaseNanos().keySet()));
+
+			assertTrue(timings.getReport().startsWith("Cayenne startup: configMerge="), timings.getReport());
+		} finally {
+			runtime.shutdown();
+		}
+	}
+
+	@Test
+	public void testCreateCayenneRuntime_Warmup() throws ReflectiveOperationException {
+		ServerRuntimeFactory factory = new ServerRuntimeFactory();
+		factory.setConfigs(asList("io/bootique/cayenne/v42/cayenne-generic.xml"));
+		factory.setDatasource("ds1");
+		factory.setWarmup(true);
+
+		StartupTimings timings = new StartupTimings();
+		ServerRuntime runtime = factory.createCayenneRuntime(
+				mockDSFactory,
+				configMerger,
+				Collections.emptyList(),
+				Collections.emptyList(),
+				timings);
+		try {
+			assertTrue(timings.getPhaseNanos().containsKey(StartupTimings.MODEL_WARMUP));
+
+			// must be resolved without calling any descriptor methods
+			Field descriptor = LazyClassDescriptorDecorator.class.getDeclaredField("descriptor");
+			descriptor.setAccessible(true);
+			ClassDescriptor t1 = runtime.getDataDomain().getEntityResolver().getClassDescriptor("T1");
+			assertNotNull(descriptor.get(t1));
+		} finally {
+			runtime.shutdown();
+		}
+	}
 }
@@ -0,0 +1,202 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.async;
+
+import io.bootique.BQRuntime;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.SQLSelect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class AsyncQueriesIT {
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    private AsyncQueries asyncQueries;
+    private ServerRuntime runtime;
+
+    @BeforeEach
+    public void createApp() {
+        BQRuntime app = testFactory.app("--config=classpath:config_async.yml").autoLoadModules().createRuntime();
+        this.asyncQueries = app.getInstance(AsyncQueries.class);
+        this.runtime = app.getInstance(ServerRuntime.class);
+    }
+
+    @Test
+    public void testSelect() throws InterruptedException, ExecutionException, TimeoutException {
+
+        List<Integer> result = asyncQueries
+                .select(SQLSelect.scalarQuery("SELECT 1 FROM SYSIBM.SYSDUMMY1", "generic", Integer.class))
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, result.size());
+        assertEquals(Integer.valueOf(1), result.get(0));
+    }
+
+    @Test
+    public void testSelectOne_Error() {
+
+        SQLSelect<Integer> badQuery = SQLSelect.scalarQuery("SELECT X FROM NO_SUCH_TABLE", "generic", Integer.class);
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> asyncQueries.selectOne(badQuery).toCompletableFuture().join());
+        assertNotNull(e.getCause());
+    }
+
+    @Test
+    public void testRun_NodeExecutor() throws InterruptedException, ExecutionException, TimeoutException {
+
+        String node = runtime.getDataDomain().getDataNodes().iterator().next().getName();
+        String thread = asyncQueries
+                .run(node, c -> Thread.currentThread().getName())
+                .toCompletableFuture()
+                .get(5, TimeUnit.SECONDS);
+
+        assertTrue(thread.startsWith("bootique-cayenne-async-" + node + "-"), thread);
+    }
+
+    @Test
+    public void testRun_UnknownNode() {
+        assertThrows(RuntimeException.class, () -> asyncQueries.run("no_such_node", c -> 1));
+    }
+
+    @Test
+    public void testRun_Overflow() throws InterruptedException, ExecutionException, TimeoutException {
+
+        BQRuntime app = testFactory.app("--config=classpath:config_async.yml")
+                .autoLoadModules()
+                .property("bq.cayenne.async.threads", "1")
+                .property("bq.cayenne.async.queueSize", "1")
+                .createRuntime();
+
+        AsyncQueries asyncQueries = app.getInstance(AsyncQueries.class);
+        String node = app.getInstance(ServerRuntime.class).getDataDomain().getDataNodes().iterator().next().getName();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // occupy the only thread, and then fill the queue
+        CompletableFuture<Integer> running = asyncQueries.run(node, c -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return 1;
+        }).toCompletableFuture();
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = asyncQueries.run(node, c -> 2).toCompletableFuture();
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> asyncQueries.run(node, c -> 3).toCompletableFuture().join());
+        assertTrue(e.getCause() instanceof RejectedExecutionException, String.valueOf(e.getCause()));
+
+        release.countDown();
+        assertEquals(Integer.valueOf(1), running.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(2), queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdown_Dropped() throws InterruptedException {
+
+        BQRuntime app = testFactory.app("--config=classpath:config_async.yml")
+                .autoLoadModules()
+                .property("bq.cayenne.async.threads", "1")
+                .property("bq.cayenne.async.queueSize", "1")
+                .property("bq.cayenne.async.shutdownTimeout", "100ms")
+                .createRuntime();
+
+        AsyncQueries asyncQueries = app.getInstance(AsyncQueries.class);
+        String node = app.getInstance(ServerRuntime.class).getDataDomain().getDataNodes().iterator().next().getName();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // occupy the only thread past the shutdown timeout, and then queue a query
+        CompletableFuture<Integer> running = asyncQueries.run(node, c -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return 1;
+        }).toCompletableFuture();
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = asyncQueries.run(node, c -> 2).toCompletableFuture();
+
+        asyncQueries.shutdown();
+
+        CompletionException e = assertThrows(CompletionException.class, queued::join);
+        assertTrue(e.getCause() instanceof RejectedExecutionException, String.valueOf(e.getCause()));
+
+        // the running query is interrupted
+        assertThrows(CompletionException.class, running::join);
+    }
+
+    @Test
+    public void testRun_CallerRunsAfterShutdown() {
+
+        BQRuntime app = testFactory.app("--config=classpath:config_async.yml")
+                .autoLoadModules()
+                .property("bq.cayenne.async.overflow", "CALLER_RUNS")
+                .createRuntime();
+
+        AsyncQueries asyncQueries = app.getInstance(AsyncQueries.class);
+        asyncQueries.shutdown();
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> asyncQueries.run(c -> 1).toCompletableFuture().join());
+        assertTrue(e.getCause() instanceof RejectedExecutionException, String.valueOf(e.getCause()));
+    }
+
+    @Test
+    public void testAppShutdown() {
+
+        BQRuntime app = testFactory.app("--config=classpath:config_async.yml").autoLoadModules().createRuntime();
+        AsyncQueries asyncQueries = app.getInstance(AsyncQueries.class);
+
+        // async queries are shut down by the runtime shutdown hook
+        app.shutdown();
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> asyncQueries.run(c -> 1).toCompletableFuture().join());
+        assertTrue(e.getCause() instanceof RejectedExecutionException, String.valueOf(e.getCause()));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.async;
+
+import io.bootique.BQRuntime;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.access.DataDomain;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.SQLSelect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class AsyncQueries_FanOutIT {
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    private AsyncQueries asyncQueries;
+    private ServerRuntime runtime;
+
+    @BeforeEach
+    public void createApp() {
+        BQRuntime app = testFactory.app("--config=classpath:config_fan_out.yml").autoLoadModules().createRuntime();
+        this.asyncQueries = app.getInstance(AsyncQueries.class);
+        this.runtime = app.getInstance(ServerRuntime.class);
+    }
+
+    private static SQLSelect<Integer> selectValue(String map, int value) {
+        return SQLSelect.scalarQuery("SELECT " + value + " FROM SYSIBM.SYSDUMMY1", map, Integer.class);
+    }
+
+    private String nodeName(String map) {
+        DataDomain domain = runtime.getDataDomain();
+        return domain.lookupDataNode(domain.getDataMap(map)).getName();
+    }
+
+    @Test
+    public void testSelectMerged() {
+
+        assertNotEquals(nodeName("map1"), nodeName("map2"));
+
+        List<Integer> merged = asyncQueries
+                .selectMerged(asList(selectValue("map1", 1), selectValue("map2", 2), selectValue("map1", 3)))
+                .toCompletableFuture()
+                .join();
+
+        assertEquals(asList(1, 2, 3), merged);
+    }
+
+    @Test
+    public void testSelectAll_NodesRunInParallel() throws InterruptedException {
+
+        // each node has a single thread; blocking the map1 node must not delay queries on the map2 node
+        CountDownLatch unblock = new CountDownLatch(1);
+        asyncQueries.run(nodeName("map1"), c -> {
+            try {
+                return unblock.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        try {
+            List<List<Integer>> results = asyncQueries
+                    .selectAll(asList(selectValue("map2", 1), selectValue("map2", 2)))
+                    .toCompletableFuture()
+                    .join();
+
+            assertEquals(asList(asList(1), asList(2)), results);
+        } finally {
+            unblock.countDown();
+        }
+    }
+
+    @Test
+    public void testSelectAll_Error() {
+        SQLSelect<Integer> badQuery = SQLSelect.scalarQuery("SELECT X FROM NO_SUCH_TABLE", "map2", Integer.class);
+        assertThrows(CompletionException.class,
+                () -> asyncQueries.selectAll(asList(selectValue("map1", 1), badQuery)).toCompletableFuture().join());
+    }
+}
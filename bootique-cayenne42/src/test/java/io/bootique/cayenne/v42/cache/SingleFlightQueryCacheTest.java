@@ -0,0 +1,207 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.cache;
+
+import org.apache.cayenne.cache.MapQueryCache;
+import org.apache.cayenne.query.QueryMetadata;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SingleFlightQueryCacheTest {
+
+    private static QueryMetadata metadata(String key) {
+        QueryMetadata md = mock(QueryMetadata.class);
+        when(md.getCacheKey()).thenReturn(key);
+        return md;
+    }
+
+    @Test
+    public void testGet_Coalesced() throws Exception {
+
+        CountDownLatch waiting = new CountDownLatch(4);
+        SingleFlightQueryCache cache = new WaitTrackingCache(5_000, waiting);
+        QueryMetadata md = metadata("k");
+
+        List<Object> result = Collections.singletonList("r");
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            Future<List> leader = executor.submit(() -> cache.get(md, () -> {
+                queries.incrementAndGet();
+                started.countDown();
+                await(release);
+                return result;
+            }));
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            List<Future<List>> followers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                followers.add(executor.submit(() -> cache.get(md, () -> {
+                    queries.incrementAndGet();
+                    return result;
+                })));
+            }
+
+            // all the followers are blocked on the leader query
+            assertTrue(waiting.await(5, TimeUnit.SECONDS));
+            release.countDown();
+
+            assertSame(result, leader.get(5, TimeUnit.SECONDS));
+            for (Future<List> f : followers) {
+                assertSame(result, f.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, queries.get());
+        assertEquals(0, cache.inFlightCount());
+    }
+
+    @Test
+    public void testGet_Error() throws Exception {
+
+        CountDownLatch waiting = new CountDownLatch(1);
+        SingleFlightQueryCache cache = new WaitTrackingCache(5_000, waiting);
+        QueryMetadata md = metadata("k");
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List> leader = executor.submit(() -> cache.get(md, () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("query failed");
+            }));
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<List> follower = executor.submit(() -> cache.get(md, () -> Collections.singletonList("other")));
+
+            assertTrue(waiting.await(5, TimeUnit.SECONDS));
+            release.countDown();
+
+            Exception e1 = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            assertTrue(e1.getCause() instanceof IllegalStateException);
+
+            // the follower was waiting on the leader, so it shares the failure
+            Exception e2 = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertTrue(e2.getCause() instanceof IllegalStateException);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, cache.inFlightCount());
+    }
+
+    @Test
+    public void testGet_Timeout() throws Exception {
+
+        CountDownLatch waiting = new CountDownLatch(1);
+        SingleFlightQueryCache cache = new WaitTrackingCache(1, waiting);
+        QueryMetadata md = metadata("k");
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+        try {
+            Future<List> leader = executor.submit(() -> cache.get(md, () -> {
+                started.countDown();
+                await(release);
+                return Collections.singletonList("leader");
+            }));
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // the leader is stuck, so the follower gives up waiting and runs its own query
+            assertEquals(Collections.singletonList("follower"),
+                    cache.get(md, () -> Collections.singletonList("follower")));
+            assertEquals(0, waiting.getCount());
+
+            release.countDown();
+            assertEquals(Collections.singletonList("leader"), leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, cache.inFlightCount());
+    }
+
+    @Test
+    public void testGet_Reentrant() {
+        SingleFlightQueryCache cache = new SingleFlightQueryCache(new MapQueryCache(), 5_000);
+        QueryMetadata md = metadata("k");
+
+        List<?> result = cache.get(md, () -> cache.get(md, () -> Collections.singletonList("inner")));
+        assertEquals(Collections.singletonList("inner"), result);
+    }
+
+    @Test
+    public void testGet_NoKey() {
+        SingleFlightQueryCache cache = new SingleFlightQueryCache(new MapQueryCache(), 5_000);
+        QueryMetadata md = metadata(null);
+
+        assertEquals(Collections.singletonList("x"), cache.get(md, () -> Collections.singletonList("x")));
+        assertEquals(0, cache.inFlightCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static class WaitTrackingCache extends SingleFlightQueryCache {
+
+        private final CountDownLatch waiting;
+
+        WaitTrackingCache(long waitTimeoutMs, CountDownLatch waiting) {
+            super(new MapQueryCache(), waitTimeoutMs);
+            this.waiting = waiting;
+        }
+
+        @Override
+        List awaitFlight(Flight flight) {
+            waiting.countDown();
+            return super.awaitFlight(flight);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.limit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ConnectionLimitingDataSourceTest {
+
+    private DataSource delegate;
+
+    @BeforeEach
+    public void before() throws SQLException {
+        this.delegate = mock(DataSource.class);
+        when(delegate.getConnection()).thenAnswer(i -> mock(Connection.class));
+    }
+
+    @Test
+    public void testLimit() throws SQLException {
+        ConnectionLimitingDataSource ds = new ConnectionLimitingDataSource("ds", delegate, new Semaphore(2), 10);
+
+        Connection c1 = ds.getConnection();
+        ds.getConnection();
+        assertEquals(0, ds.getAvailablePermits());
+        assertThrows(SQLTransientConnectionException.class, ds::getConnection);
+        verify(delegate, times(2)).getConnection();
+
+        c1.close();
+        assertEquals(1, ds.getAvailablePermits());
+        ds.getConnection();
+        verify(delegate, times(3)).getConnection();
+    }
+
+    @Test
+    public void testDoubleClose() throws SQLException {
+        ConnectionLimitingDataSource ds = new ConnectionLimitingDataSource("ds", delegate, new Semaphore(2), 10);
+
+        Connection c1 = ds.getConnection();
+        c1.close();
+        c1.close();
+        assertEquals(2, ds.getAvailablePermits());
+    }
+
+    @Test
+    public void testDelegateFailure() throws SQLException {
+        when(delegate.getConnection()).thenThrow(new SQLException("test"));
+        ConnectionLimitingDataSource ds = new ConnectionLimitingDataSource("ds", delegate, new Semaphore(1), 10);
+
+        assertThrows(SQLException.class, ds::getConnection);
+        assertEquals(1, ds.getAvailablePermits());
+    }
+}
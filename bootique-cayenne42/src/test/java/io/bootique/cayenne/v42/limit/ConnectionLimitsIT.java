@@ -0,0 +1,100 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.limit;
+
+import io.bootique.BQRuntime;
+import io.bootique.cayenne.v42.LazyDataSource;
+import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.access.DataNode;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.SQLSelect;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class ConnectionLimitsIT {
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    private BQRuntime app;
+    private ServerRuntime runtime;
+
+    private void createApp(String config) {
+        this.app = testFactory.app("--config=classpath:" + config).autoLoadModules().createRuntime();
+        this.runtime = app.getInstance(ServerRuntime.class);
+    }
+
+    private int selectOne() {
+        return SQLSelect.scalarQuery("SELECT 1 FROM SYSIBM.SYSDUMMY1", "generic", Integer.class)
+                .selectOne(runtime.newContext());
+    }
+
+    @Test
+    public void testLimit() throws SQLException {
+
+        createApp("config_connection_limits.yml");
+
+        DataNode node = runtime.getDataDomain().getDataNodes().iterator().next();
+        assertTrue(node.getDataSource().isWrapperFor(ConnectionLimitingDataSource.class));
+        ConnectionLimitingDataSource ds = node.getDataSource().unwrap(ConnectionLimitingDataSource.class);
+
+        assertEquals(1, selectOne());
+
+        // holding the only permit must make Cayenne queries time out
+        try (Connection c = ds.getConnection()) {
+            assertThrows(CayenneRuntimeException.class, this::selectOne);
+        }
+
+        assertEquals(1, selectOne());
+        assertEquals(1, ds.getAvailablePermits());
+    }
+
+    @Test
+    public void testLimit_PoolSize() throws SQLException {
+
+        createApp("config_connection_limits_pool.yml");
+
+        // the limit must not start the pool to find its size
+        assertFalse(app.getInstance(DataSourceFactory.class).isStarted("ds"));
+        assertEquals(1, selectOne());
+
+        DataNode node = runtime.getDataDomain().getDataNodes().iterator().next();
+        // Cayenne only unwraps its own DataSource wrapper, so unwrap the lazy DataSource separately
+        ConnectionLimitingDataSource ds = node.getDataSource()
+                .unwrap(LazyDataSource.class)
+                .unwrap(ConnectionLimitingDataSource.class);
+        assertEquals(2, ds.getAvailablePermits());
+
+        try (Connection c1 = ds.getConnection(); Connection c2 = ds.getConnection()) {
+            assertThrows(CayenneRuntimeException.class, this::selectOne);
+        }
+
+        assertEquals(1, selectOne());
+    }
+}
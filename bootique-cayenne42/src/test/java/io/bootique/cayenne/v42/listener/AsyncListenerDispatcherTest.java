@@ -0,0 +1,152 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.listener;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncListenerDispatcherTest {
+
+    @Test
+    public void testDispatch_OrderPerEntity() {
+
+        AsyncListenerDispatcher dispatcher = new AsyncListenerDispatcher(4, 1000, ListenerOverflowPolicy.BLOCK, 5000);
+
+        List<Integer> e1 = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> e2 = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 500; i++) {
+            int n = i;
+            dispatcher.dispatch("E1", () -> e1.add(n));
+            dispatcher.dispatch("E2", () -> e2.add(n));
+        }
+
+        dispatcher.shutdown();
+
+        assertEquals(500, e1.size());
+        assertEquals(500, e2.size());
+        for (int i = 0; i < 500; i++) {
+            assertEquals(i, e1.get(i));
+            assertEquals(i, e2.get(i));
+        }
+        assertEquals(0, dispatcher.getDiscardedCallbacks());
+    }
+
+    @Test
+    public void testDispatch_ErrorDoesNotStopQueue() {
+
+        AsyncListenerDispatcher dispatcher = new AsyncListenerDispatcher(1, 10, ListenerOverflowPolicy.BLOCK, 5000);
+
+        List<String> invoked = Collections.synchronizedList(new ArrayList<>());
+        dispatcher.dispatch("E1", () -> {
+            throw new RuntimeException("test");
+        });
+        dispatcher.dispatch("E1", () -> invoked.add("after"));
+
+        dispatcher.shutdown();
+        assertEquals(Collections.singletonList("after"), invoked);
+    }
+
+    @Test
+    public void testOverflow_Discard() throws InterruptedException {
+
+        AsyncListenerDispatcher dispatcher = new AsyncListenerDispatcher(1, 1, ListenerOverflowPolicy.DISCARD, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        dispatcher.dispatch("E1", () -> blockOn(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 1 fits in the queue, 2 are dropped
+        dispatcher.dispatch("E1", () -> {});
+        dispatcher.dispatch("E1", () -> {});
+        dispatcher.dispatch("E1", () -> {});
+
+        assertEquals(1, dispatcher.getQueuedCallbacks());
+        assertEquals(2, dispatcher.getDiscardedCallbacks());
+
+        release.countDown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    public void testOverflow_CallerRuns() throws InterruptedException {
+
+        AsyncListenerDispatcher dispatcher = new AsyncListenerDispatcher(1, 1, ListenerOverflowPolicy.CALLER_RUNS, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        dispatcher.dispatch("E1", () -> blockOn(started, release));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        dispatcher.dispatch("E1", () -> threads.add(Thread.currentThread()));
+        dispatcher.dispatch("E1", () -> threads.add(Thread.currentThread()));
+
+        // the second callback didn't fit in the queue and was invoked right away by the caller
+        assertEquals(Collections.singletonList(Thread.currentThread()), threads);
+
+        release.countDown();
+        dispatcher.shutdown();
+
+        assertEquals(2, threads.size());
+        assertNotSame(Thread.currentThread(), threads.get(1));
+        assertEquals(0, dispatcher.getDiscardedCallbacks());
+    }
+
+    @Test
+    public void testShutdown_RejectsNewCallbacks() {
+
+        AsyncListenerDispatcher dispatcher = new AsyncListenerDispatcher(1, 10, ListenerOverflowPolicy.BLOCK, 5000);
+        dispatcher.shutdown();
+
+        dispatcher.dispatch("E1", () -> fail("Must not be invoked after shutdown"));
+        assertEquals(1, dispatcher.getDiscardedCallbacks());
+    }
+
+    @Test
+    public void testDisabled() {
+
+        AsyncListenerDispatcher dispatcher = AsyncListenerDispatcher.disabled();
+        assertFalse(dispatcher.isEnabled());
+
+        List<Thread> threads = new ArrayList<>();
+        dispatcher.dispatch("E1", () -> threads.add(Thread.currentThread()));
+        assertEquals(Collections.singletonList(Thread.currentThread()), threads);
+
+        dispatcher.shutdown();
+        assertEquals(0, dispatcher.getDiscardedCallbacks());
+    }
+
+    private static void blockOn(CountDownLatch started, CountDownLatch release) {
+        started.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
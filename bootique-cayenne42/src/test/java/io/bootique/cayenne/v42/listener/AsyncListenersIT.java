@@ -0,0 +1,160 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.listener;
+
+import io.bootique.BQRuntime;
+import io.bootique.cayenne.v42.CayenneModule;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.annotation.PostPersist;
+import org.apache.cayenne.annotation.PostUpdate;
+import org.apache.cayenne.annotation.PrePersist;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.SQLExec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class AsyncListenersIT {
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    private ServerRuntime runtime;
+
+    @AfterEach
+    public void dropTable() {
+        if (runtime != null) {
+            SQLExec.query("generic", "DROP TABLE T1").execute(runtime.newContext());
+        }
+    }
+
+    @Test
+    public void testPostCommitCallbacks_Async() throws InterruptedException {
+
+        L1 listener = new L1(4);
+        BQRuntime app = testFactory.app("--config=classpath:config_async_listeners.yml")
+                .autoLoadModules()
+                .module(b -> CayenneModule.extend(b).addListener(listener))
+                .createRuntime();
+        this.runtime = app.getInstance(ServerRuntime.class);
+
+        ObjectContext context = runtime.newContext();
+        CayenneDataObject o1 = newObject(context, "n1");
+        CayenneDataObject o2 = newObject(context, "n2");
+        context.commitChanges();
+
+        o1.writeProperty("name", "n1_1");
+        context.commitChanges();
+        o1.writeProperty("name", "n1_2");
+        context.commitChanges();
+
+        assertTrue(listener.done.await(5, TimeUnit.SECONDS));
+
+        // pre-commit callbacks stay synchronous
+        assertEquals(2, listener.prePersistThreads.size());
+        listener.prePersistThreads.forEach(t -> assertSame(Thread.currentThread(), t));
+
+        // post-commit callbacks are invoked by the dispatcher threads in the order of commits
+        assertEquals(4, listener.events.size());
+        assertTrue(listener.events.subList(0, 2).contains("persist:" + o1.getObjectId()));
+        assertTrue(listener.events.subList(0, 2).contains("persist:" + o2.getObjectId()));
+        assertEquals("update:" + o1.getObjectId(), listener.events.get(2));
+        assertEquals("update:" + o1.getObjectId(), listener.events.get(3));
+        listener.postCommitThreads.forEach(t -> assertTrue(t.startsWith("bootique-cayenne-listener-"), t));
+
+        // a single dispatcher is shared by Bootique and Cayenne DI
+        assertSame(app.getInstance(AsyncListenerDispatcher.class),
+                runtime.getInjector().getInstance(AsyncListenerDispatcher.class));
+    }
+
+    @Test
+    public void testShutdown_DrainsCallbacks() {
+
+        L1 listener = new L1(2);
+        BQRuntime app = testFactory.app("--config=classpath:config_async_listeners.yml")
+                .autoLoadModules()
+                .module(b -> CayenneModule.extend(b).addListener(listener))
+                .createRuntime();
+        ServerRuntime runtime = app.getInstance(ServerRuntime.class);
+
+        ObjectContext context = runtime.newContext();
+        newObject(context, "n1");
+        newObject(context, "n2");
+        context.commitChanges();
+        SQLExec.query("generic", "DROP TABLE T1").execute(runtime.newContext());
+
+        app.shutdown();
+        assertEquals(0, listener.done.getCount());
+    }
+
+    private static CayenneDataObject newObject(ObjectContext context, String name) {
+        CayenneDataObject o = new CayenneDataObject();
+        o.setObjectId(ObjectId.of("T1"));
+        o.writeProperty("name", name);
+        context.registerNewObject(o);
+        return o;
+    }
+
+    static class L1 {
+
+        final CountDownLatch done;
+        final List<Thread> prePersistThreads = Collections.synchronizedList(new ArrayList<>());
+        final List<String> postCommitThreads = Collections.synchronizedList(new ArrayList<>());
+        final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        L1(int expectedEvents) {
+            this.done = new CountDownLatch(expectedEvents);
+        }
+
+        @PrePersist
+        public void prePersist(Object o) {
+            prePersistThreads.add(Thread.currentThread());
+        }
+
+        @PostPersist
+        public void postPersist(CayenneDataObject o) {
+            record("persist:" + o.getObjectId());
+        }
+
+        @PostUpdate
+        void postUpdate(CayenneDataObject o) {
+            record("update:" + o.getObjectId());
+        }
+
+        private void record(String event) {
+            postCommitThreads.add(Thread.currentThread().getName());
+            events.add(event);
+            done.countDown();
+        }
+    }
+}
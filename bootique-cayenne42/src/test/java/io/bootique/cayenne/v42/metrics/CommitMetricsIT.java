@@ -0,0 +1,82 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import io.bootique.BQRuntime;
+import io.bootique.cayenne.v42.CayenneModule;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.ObjectSelect;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@BQTest
+public class CommitMetricsIT {
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    @Test
+    public void testMetrics() {
+
+        BQRuntime app = testFactory.app("--config=classpath:config_commit_metrics.yml")
+                .autoLoadModules()
+                .module(b -> CayenneModule.extend(b).addSyncFilter(CommitMetricsFilter.class))
+                .createRuntime();
+
+        ServerRuntime runtime = app.getInstance(ServerRuntime.class);
+        CommitMetrics metrics = app.getInstance(CommitMetrics.class);
+
+        ObjectContext context = runtime.newContext();
+        for (int i = 0; i < 2; i++) {
+            CayenneDataObject o = new CayenneDataObject();
+            o.setObjectId(ObjectId.of("T1"));
+            o.writeProperty("name", "n" + i);
+            context.registerNewObject(o);
+        }
+        context.commitChanges();
+
+        List<CayenneDataObject> objects = ObjectSelect.query(CayenneDataObject.class, "T1").select(context);
+        objects.get(0).writeProperty("name", "nx");
+        context.deleteObject(objects.get(1));
+        context.commitChanges();
+
+        // rollbacks are not counted
+        objects.get(0).writeProperty("name", "ny");
+        context.rollbackChanges();
+
+        assertEquals(2, metrics.getCommitCount());
+        assertEquals(0, metrics.getErrorCount());
+        assertEquals(2, metrics.getMaxObjectsPerCommit());
+
+        EntityChangeStats t1 = metrics.getEntityStats("T1");
+        assertEquals(2, t1.getInserted());
+        assertEquals(1, t1.getUpdated());
+        assertEquals(1, t1.getDeleted());
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import io.bootique.BQRuntime;
+import io.bootique.cayenne.v42.startup.StartupTimings;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import io.bootique.log.BootLogger;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.ObjectSelect;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@BQTest
+public class JfrEventsIT {
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    @TempDir
+    Path tempDir;
+
+    private static List<RecordedEvent> events(List<RecordedEvent> all, String name) {
+        return all.stream().filter(e -> name.equals(e.getEventType().getName())).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testEvents() throws IOException {
+
+        BQRuntime app = testFactory.app("--config=classpath:config_jfr_events.yml").autoLoadModules().createRuntime();
+        ServerRuntime runtime = app.getInstance(ServerRuntime.class);
+
+        // start the stack before recording to exclude schema generation
+        runtime.getDataDomain();
+
+        Path file = tempDir.resolve("cayenne.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("io.bootique.cayenne.Query").withoutThreshold();
+            recording.enable("io.bootique.cayenne.Commit").withoutThreshold();
+            recording.enable("io.bootique.cayenne.QueryCache").withoutThreshold();
+            recording.start();
+
+            ObjectContext context = runtime.newContext();
+            for (int i = 0; i < 2; i++) {
+                CayenneDataObject o = new CayenneDataObject();
+                o.setObjectId(ObjectId.of("T1"));
+                o.writeProperty("name", "n" + i);
+                context.registerNewObject(o);
+            }
+            context.commitChanges();
+
+            // miss, then hit
+            ObjectSelect.query(CayenneDataObject.class, "T1").sharedCache("jfr").select(runtime.newContext());
+            ObjectSelect.query(CayenneDataObject.class, "T1").sharedCache("jfr").select(runtime.newContext());
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> all = RecordingFile.readAllEvents(file);
+
+        List<RecordedEvent> commits = events(all, "io.bootique.cayenne.Commit");
+        assertEquals(1, commits.size());
+        assertEquals(2, commits.get(0).getInt("inserted"));
+        assertFalse(commits.get(0).getBoolean("failed"));
+
+        List<RecordedEvent> queries = events(all, "io.bootique.cayenne.Query").stream()
+                .filter(e -> "ObjectSelect".equals(e.getString("queryType")))
+                .collect(Collectors.toList());
+        assertEquals(2, queries.size());
+        assertEquals("T1", queries.get(0).getString("entity"));
+        assertEquals(2, queries.get(0).getInt("rows"));
+
+        List<RecordedEvent> cache = events(all, "io.bootique.cayenne.QueryCache");
+        assertEquals(2, cache.size());
+        assertFalse(cache.get(0).getBoolean("hit"));
+        assertTrue(cache.get(1).getBoolean("hit"));
+        assertEquals("jfr", cache.get(1).getString("group"));
+    }
+
+    @Test
+    public void testStartupEvents() throws IOException {
+
+        List<String> log = new ArrayList<>();
+        BootLogger bootLogger = mock(BootLogger.class);
+        doAnswer(i -> log.add(i.<Supplier<String>>getArgument(0).get())).when(bootLogger).trace(any());
+
+        Path file = tempDir.resolve("cayenne_startup.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("io.bootique.cayenne.StartupPhase");
+            recording.start();
+
+            BQRuntime app = testFactory.app("--config=classpath:config_jfr_events.yml")
+                    .autoLoadModules()
+                    .bootLogger(bootLogger)
+                    .createRuntime();
+            app.getInstance(ServerRuntime.class).getDataDomain();
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<String> phases = events(RecordingFile.readAllEvents(file), "io.bootique.cayenne.StartupPhase").stream()
+                .map(e -> e.getString("phase"))
+                .collect(Collectors.toList());
+
+        assertTrue(phases.contains(StartupTimings.RUNTIME_ASSEMBLY), String.valueOf(phases));
+        assertTrue(phases.contains(StartupTimings.DATA_DOMAIN), String.valueOf(phases));
+
+        // the phases are also reported to the BootLogger
+        String dataDomainLog = "Cayenne startup phase '" + StartupTimings.DATA_DOMAIN + "'";
+        assertTrue(log.stream().anyMatch(m -> m.startsWith(dataDomainLog)), String.valueOf(log));
+    }
+}
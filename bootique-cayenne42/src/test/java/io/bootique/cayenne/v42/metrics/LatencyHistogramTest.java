@@ -0,0 +1,67 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucket() {
+        assertEquals(0, LatencyHistogram.bucket(0));
+        assertEquals(0, LatencyHistogram.bucket(TimeUnit.MICROSECONDS.toNanos(1)));
+        assertEquals(1, LatencyHistogram.bucket(TimeUnit.MICROSECONDS.toNanos(2)));
+        assertEquals(2, LatencyHistogram.bucket(TimeUnit.MICROSECONDS.toNanos(3)));
+        assertEquals(10, LatencyHistogram.bucket(TimeUnit.MICROSECONDS.toNanos(1024)));
+        assertEquals(31, LatencyHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.getPercentileNanos(0.5));
+
+        for (int i = 0; i < 99; i++) {
+            h.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        h.record(TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertEquals(100, h.getCount());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), h.getMaxNanos());
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(128), h.getPercentileNanos(0.5));
+        assertEquals(TimeUnit.MICROSECONDS.toNanos(128), h.getPercentileNanos(0.99));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(50), h.getPercentileNanos(1.));
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram h = new LatencyHistogram();
+        h.record(1000);
+        h.reset();
+
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getMaxNanos());
+        assertEquals(0, h.getMeanNanos());
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import io.bootique.BQRuntime;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.SQLSelect;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class QueryMetricsIT {
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    @Test
+    public void testMetrics() {
+
+        BQRuntime app = testFactory.app("--config=classpath:config_query_metrics.yml").autoLoadModules().createRuntime();
+        ServerRuntime runtime = app.getInstance(ServerRuntime.class);
+        QueryMetrics metrics = app.getInstance(QueryMetrics.class);
+
+        ObjectContext context = runtime.newContext();
+        for (int i = 0; i < 2; i++) {
+            CayenneDataObject o = new CayenneDataObject();
+            o.setObjectId(ObjectId.of("T1"));
+            o.writeProperty("name", "n" + i);
+            context.registerNewObject(o);
+        }
+        context.commitChanges();
+
+        ObjectSelect.query(CayenneDataObject.class, "T1").select(runtime.newContext());
+        ObjectSelect.query(CayenneDataObject.class, "T1").select(runtime.newContext());
+
+        assertThrows(CayenneRuntimeException.class,
+                () -> SQLSelect.dataRowQuery("SELECT * FROM NO_SUCH_TABLE").select(runtime.newContext()));
+
+        QueryStats selects = metrics.getStats("T1", "ObjectSelect");
+        assertEquals(2, selects.getCount());
+        assertEquals(4, selects.getRowCount());
+        assertEquals(0, selects.getErrorCount());
+        assertTrue(selects.getLatency().getMaxNanos() > 0);
+
+        QueryStats errors = metrics.getStats(QueryMetricsFilter.NO_ENTITY, "SQLSelect");
+        assertEquals(1, errors.getCount());
+        assertEquals(1, errors.getErrorCount());
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import org.apache.cayenne.DataChannelQueryFilterChain;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.QueryResponse;
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.access.translator.DbAttributeBinding;
+import org.apache.cayenne.access.translator.ParameterBinding;
+import org.apache.cayenne.log.JdbcEventLogger;
+import org.apache.cayenne.map.DbAttribute;
+import org.apache.cayenne.query.Query;
+import org.apache.cayenne.query.SQLSelect;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class SlowQueryLogFilterTest {
+
+    private static QueryResponse runQuery(SlowQueryLogFilter filter, JdbcEventLogger logger, String sql, Object param) {
+        DataChannelQueryFilterChain chain = (c, q) -> {
+            logger.logQuery(sql, new ParameterBinding[]{new ParameterBinding(param, null, 0)});
+            return null;
+        };
+
+        return filter.onQuery(null, SQLSelect.dataRowQuery(sql), chain);
+    }
+
+    @Test
+    public void testCapture() {
+        TestFilter filter = new TestFilter(0L, true, false, 1., 0);
+        JdbcEventLogger logger = new CapturingJdbcEventLogger(mock(JdbcEventLogger.class));
+
+        runQuery(filter, logger, "SELECT 1", 5);
+
+        assertEquals(1, filter.captures.size());
+        assertEquals(asList("SELECT 1"), filter.captures.get(0).getStatements());
+        assertEquals(asList(5), filter.formatParameters(filter.captures.get(0).getBindings().get(0)));
+
+        // no capture outside of the filter
+        assertNull(SqlCapture.current());
+    }
+
+    @Test
+    public void testCapture_DoesNotEnableLogging() {
+        TestFilter filter = new TestFilter(0L, true, false, 1., 0);
+        JdbcEventLogger delegate = mock(JdbcEventLogger.class);
+        JdbcEventLogger logger = new CapturingJdbcEventLogger(delegate);
+
+        List<Boolean> loggable = new ArrayList<>();
+        filter.onQuery(null, SQLSelect.dataRowQuery("SELECT 1"), (c, q) -> {
+            loggable.add(logger.isLoggable());
+            logger.logQuery("SELECT 1", new ParameterBinding[0]);
+            return null;
+        });
+
+        assertEquals(asList(false), loggable);
+        assertEquals(asList("SELECT 1"), filter.captures.get(0).getStatements());
+        verify(delegate, never()).logQuery(any(), any());
+    }
+
+    @Test
+    public void testFormatParameters_MaskAll() {
+        TestFilter filter = new TestFilter(0L, true, true, 1., 0);
+        JdbcEventLogger logger = new CapturingJdbcEventLogger(mock(JdbcEventLogger.class));
+
+        runQuery(filter, logger, "SELECT 1", "secret");
+        assertEquals(asList(SlowQueryLogFilter.MASK), filter.formatParameters(filter.captures.get(0).getBindings().get(0)));
+    }
+
+    @Test
+    public void testFormatParameters_MaskedColumns() {
+        SlowQueryLogFilter filter = new SlowQueryLogFilter(0L, true, false, asList("PASSWORD"), 1., 0);
+
+        DbAttributeBinding name = new DbAttributeBinding(new DbAttribute("name"));
+        name.include(1, "n1", null);
+        DbAttributeBinding password = new DbAttributeBinding(new DbAttribute("password"));
+        password.include(2, "secret", null);
+
+        assertEquals(asList("n1", SlowQueryLogFilter.MASK),
+                filter.formatParameters(new ParameterBinding[]{name, password}));
+    }
+
+    @Test
+    public void testStatementLines_FromQuery() {
+        SlowQueryLogFilter filter = new SlowQueryLogFilter(0L, true, false, asList("password"), 1., 0);
+
+        // nothing captured, e.g. SQLTemplate that was not reported to a disabled logger
+        SQLSelect<DataRow> query = SQLSelect.dataRowQuery("SELECT * FROM T1 WHERE name = #bind($name) AND password = #bind($password)")
+                .param("name", "n1")
+                .param("password", "secret");
+
+        List<String> lines = filter.statementLines(query, new SqlCapture(true));
+        assertEquals(asList(
+                "SQL: SELECT * FROM T1 WHERE name = #bind($name) AND password = #bind($password)",
+                "parameters: {name=n1, password=***}"), lines);
+    }
+
+    @Test
+    public void testCapture_NoParameters() {
+        TestFilter filter = new TestFilter(0L, false, false, 1., 0);
+        JdbcEventLogger logger = new CapturingJdbcEventLogger(mock(JdbcEventLogger.class));
+
+        runQuery(filter, logger, "SELECT 1", "secret");
+        assertNull(filter.captures.get(0).getBindings());
+    }
+
+    @Test
+    public void testThreshold() {
+        TestFilter filter = new TestFilter(Long.MAX_VALUE, true, false, 1., 0);
+        JdbcEventLogger logger = new CapturingJdbcEventLogger(mock(JdbcEventLogger.class));
+
+        runQuery(filter, logger, "SELECT 1", 5);
+        assertTrue(filter.captures.isEmpty());
+    }
+
+    @Test
+    public void testShouldLog_RateLimit() {
+        SlowQueryLogFilter filter = new SlowQueryLogFilter(0L, false, true, 1., 2);
+
+        // assuming the test doesn't cross a second boundary in between, only 2 checks out of 3 should pass...
+        int passed = 0;
+        for (int i = 0; i < 3; i++) {
+            if (filter.shouldLog()) {
+                passed++;
+            }
+        }
+
+        assertTrue(passed == 2 || passed == 3, "Unexpected number of logged queries: " + passed);
+    }
+
+    @Test
+    public void testShouldLog_Sampling() {
+        SlowQueryLogFilter filter = new SlowQueryLogFilter(0L, false, true, 0., 0);
+        for (int i = 0; i < 100; i++) {
+            assertFalse(filter.shouldLog());
+        }
+    }
+
+    @Test
+    public void testLog_Failure() {
+        TestFilter filter = new TestFilter(0L, true, false, 1., 0);
+        JdbcEventLogger logger = new CapturingJdbcEventLogger(mock(JdbcEventLogger.class));
+
+        RuntimeException timeout = new RuntimeException("query timeout");
+        RuntimeException e = assertThrows(RuntimeException.class, () -> filter.onQuery(
+                null,
+                SQLSelect.dataRowQuery("SELECT 1"),
+                (c, q) -> {
+                    logger.logQuery("SELECT 1", new ParameterBinding[0]);
+                    throw timeout;
+                }));
+
+        assertSame(timeout, e);
+        assertEquals(asList(timeout), filter.errors);
+        assertEquals(asList("SELECT 1"), filter.captures.get(0).getStatements());
+        assertNull(SqlCapture.current());
+    }
+
+    static class TestFilter extends SlowQueryLogFilter {
+
+        final List<SqlCapture> captures = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+
+        TestFilter(long thresholdNanos, boolean logParameters, boolean maskParameters, double sampling, int maxPerSecond) {
+            super(thresholdNanos, logParameters, maskParameters, sampling, maxPerSecond);
+        }
+
+        @Override
+        void log(ObjectContext context, Query query, QueryResponse response, Throwable error, SqlCapture capture, long nanos) {
+            captures.add(capture);
+            if (error != null) {
+                errors.add(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.metrics;
+
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.exp.ExpressionFactory;
+import org.apache.cayenne.log.JdbcEventLogger;
+import org.apache.cayenne.query.ObjectSelect;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@BQTest
+public class SlowQueryLogIT {
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    @Test
+    public void testSlowQueryLog() {
+
+        ServerRuntime runtime = testFactory.app("--config=classpath:config_slow_query_log.yml")
+                .autoLoadModules()
+                .createRuntime()
+                .getInstance(ServerRuntime.class);
+
+        assertTrue(runtime.getInjector().getInstance(JdbcEventLogger.class) instanceof CapturingJdbcEventLogger);
+
+        // with zero threshold every query is logged; must not break query execution
+        ObjectSelect.query(CayenneDataObject.class, "T1")
+                .where(ExpressionFactory.matchExp("name", "x"))
+                .select(runtime.newContext());
+    }
+}
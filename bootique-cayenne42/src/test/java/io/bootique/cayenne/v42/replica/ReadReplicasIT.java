@@ -0,0 +1,180 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.replica;
+
+import io.bootique.BQRuntime;
+import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.ObjectSelect;
+import org.apache.cayenne.query.SQLExec;
+import org.apache.cayenne.query.SQLSelect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@BQTest
+public class ReadReplicasIT {
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    private BQRuntime app;
+
+    @BeforeEach
+    public void createApp() throws SQLException {
+        this.app = testFactory.app("--config=classpath:config_replicas.yml").autoLoadModules().createRuntime();
+
+        // replicas are not really replicated here, so we can tell where each query went by the data
+        exec("ds", "CREATE TABLE T1 (id INTEGER NOT NULL PRIMARY KEY, name VARCHAR(100))");
+        exec("ds_replica", "CREATE TABLE T1 (id INTEGER NOT NULL PRIMARY KEY, name VARCHAR(100))");
+        exec("ds_replica", "INSERT INTO T1 (id, name) VALUES (1, 'replica')");
+    }
+
+    @AfterEach
+    public void dropTables() throws SQLException {
+        exec("ds", "DROP TABLE T1");
+        exec("ds_replica", "DROP TABLE T1");
+    }
+
+    private void exec(String dataSource, String sql) throws SQLException {
+        DataSource ds = app.getInstance(DataSourceFactory.class).forName(dataSource);
+        try (Connection c = ds.getConnection()) {
+            try (Statement st = c.createStatement()) {
+                st.execute(sql);
+            }
+            c.commit();
+        }
+    }
+
+    private int count(String dataSource) throws SQLException {
+        DataSource ds = app.getInstance(DataSourceFactory.class).forName(dataSource);
+        try (Connection c = ds.getConnection()) {
+            try (Statement st = c.createStatement()) {
+                try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM T1")) {
+                    rs.next();
+                    return rs.getInt(1);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRouting() throws SQLException {
+
+        ServerRuntime runtime = app.getInstance(ServerRuntime.class);
+
+        ObjectContext context = runtime.newContext();
+
+        // select goes to the replica
+        assertEquals(1, ObjectSelect.dbQuery("T1").select(context).size());
+
+        // commit goes to the primary
+        CayenneDataObject o = new CayenneDataObject();
+        o.setObjectId(ObjectId.of("T1"));
+        o.getObjectId().getReplacementIdMap().put("id", 5);
+        o.writeProperty("name", "primary");
+        context.registerNewObject(o);
+        context.commitChanges();
+
+        assertEquals(1, count("ds"));
+        assertEquals(1, count("ds_replica"));
+
+        // subsequent selects still go to the replica
+        assertEquals(1, ObjectSelect.dbQuery("T1").select(runtime.newContext()).size());
+    }
+
+    @Test
+    public void testRouting_SQLExec() throws SQLException {
+
+        ServerRuntime runtime = app.getInstance(ServerRuntime.class);
+        ObjectContext context = runtime.newContext();
+
+        // update goes to the primary
+        int updated = SQLExec.query("generic", "INSERT INTO T1 (id, name) VALUES (7, 'primary')").update(context);
+        assertEquals(1, updated);
+        assertEquals(1, count("ds"));
+        assertEquals(1, count("ds_replica"));
+
+        // a select in the same context still goes to the replica
+        List<String> names = SQLSelect.scalarQuery("SELECT name FROM T1", "generic", String.class).select(context);
+        assertEquals(Collections.singletonList("replica"), names);
+    }
+
+    @Test
+    public void testRouting_TransactionReadThenCommit() throws SQLException {
+
+        ServerRuntime runtime = app.getInstance(ServerRuntime.class);
+        ObjectContext context = runtime.newContext();
+
+        // the select takes a replica connection, that the transaction would reuse for the commit
+        assertThrows(CayenneRuntimeException.class, () -> runtime.performInTransaction(() -> {
+            ObjectSelect.dbQuery("T1").select(context);
+            newObject(context, 5);
+            context.commitChanges();
+            return null;
+        }));
+
+        assertEquals(0, count("ds"));
+        assertEquals(1, count("ds_replica"));
+    }
+
+    @Test
+    public void testRouting_TransactionWithPrimary() throws SQLException {
+
+        ServerRuntime runtime = app.getInstance(ServerRuntime.class);
+        ObjectContext context = runtime.newContext();
+
+        ReplicaRoutingDataSource.withPrimary(() -> runtime.performInTransaction(() -> {
+            assertEquals(0, ObjectSelect.dbQuery("T1").select(context).size());
+            newObject(context, 5);
+            context.commitChanges();
+            return null;
+        }));
+
+        assertEquals(1, count("ds"));
+        assertEquals(1, count("ds_replica"));
+    }
+
+    private static void newObject(ObjectContext context, int id) {
+        CayenneDataObject o = new CayenneDataObject();
+        o.setObjectId(ObjectId.of("T1"));
+        o.getObjectId().getReplacementIdMap().put("id", id);
+        o.writeProperty("name", "primary");
+        context.registerNewObject(o);
+    }
+}
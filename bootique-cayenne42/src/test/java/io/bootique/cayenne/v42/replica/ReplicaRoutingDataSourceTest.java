@@ -0,0 +1,105 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.replica;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private DataSource primary;
+    private DataSource r1;
+    private DataSource r2;
+
+    private static DataSource mockDataSource() throws SQLException {
+        DataSource ds = mock(DataSource.class);
+        when(ds.getConnection()).thenAnswer(i -> mock(Connection.class));
+        return ds;
+    }
+
+    @BeforeEach
+    public void before() throws SQLException {
+        this.primary = mockDataSource();
+        this.r1 = mockDataSource();
+        this.r2 = mockDataSource();
+    }
+
+    @Test
+    public void testRoundRobin() throws SQLException {
+        ReplicaRoutingDataSource ds = new ReplicaRoutingDataSource(primary, asList(r1, r2), ReplicaSelectionStrategy.ROUND_ROBIN);
+
+        ds.getConnection();
+        ds.getConnection();
+        ds.getConnection();
+
+        verify(r1, times(2)).getConnection();
+        verify(r2, times(1)).getConnection();
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    public void testLeastActive() throws SQLException {
+        ReplicaRoutingDataSource ds = new ReplicaRoutingDataSource(primary, asList(r1, r2), ReplicaSelectionStrategy.LEAST_ACTIVE);
+
+        // neither connection is closed, so they must be spread between the replicas
+        ds.getConnection();
+        ds.getConnection();
+        verify(r1, times(1)).getConnection();
+        verify(r2, times(1)).getConnection();
+
+        // closing a connection makes its replica preferable
+        Connection c3 = ds.getConnection();
+        c3.close();
+        Connection c4 = ds.getConnection();
+        c4.close();
+        ds.getConnection();
+
+        verify(r1, times(3)).getConnection();
+        verify(r2, times(2)).getConnection();
+        verify(primary, never()).getConnection();
+    }
+
+    @Test
+    public void testWithPrimary() throws SQLException {
+        ReplicaRoutingDataSource ds = new ReplicaRoutingDataSource(primary, asList(r1, r2), ReplicaSelectionStrategy.ROUND_ROBIN);
+
+        Connection c = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(c);
+
+        assertSame(c, ReplicaRoutingDataSource.withPrimary(() -> {
+            try {
+                return ds.getConnection();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }));
+
+        verify(r1, never()).getConnection();
+        verify(r2, never()).getConnection();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.snapshot;
+
+import io.bootique.BQRuntime;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.CayenneDataObject;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.ObjectId;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class SnapshotCacheIT {
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    @Test
+    public void testSizeAndStats() {
+
+        BQRuntime app = testFactory.app("--config=classpath:config_snapshot_cache.yml").autoLoadModules().createRuntime();
+        ServerRuntime runtime = app.getInstance(ServerRuntime.class);
+        SnapshotCacheStats stats = app.getInstance(SnapshotCacheStats.class);
+
+        assertTrue(runtime.getDataDomain().getSharedSnapshotCache() instanceof InstrumentedDataRowStore);
+        assertEquals(2, stats.getMaxSize());
+
+        ObjectContext context = runtime.newContext();
+        List<CayenneDataObject> objects = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CayenneDataObject o = new CayenneDataObject();
+            o.setObjectId(ObjectId.of("T1"));
+            o.writeProperty("name", "n" + i);
+            context.registerNewObject(o);
+            objects.add(o);
+        }
+        context.commitChanges();
+
+        assertEquals(2, stats.getSize());
+        assertEquals(1, stats.getEvictions());
+
+        // looking up snapshots directly, as fetching the missing ones would evict others, and the order of
+        // snapshots in the cache after commit is not deterministic
+        stats.reset();
+        for (CayenneDataObject o : objects) {
+            runtime.getDataDomain().getSharedSnapshotCache().getCachedSnapshot(o.getObjectId());
+        }
+
+        assertEquals(2, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(0, stats.getExpirations());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.snapshot;
+
+import org.apache.cayenne.DataRow;
+import org.apache.cayenne.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotMapTest {
+
+    private static DataRow row(int id) {
+        DataRow row = new DataRow(2);
+        row.put("ID", id);
+        return row;
+    }
+
+    @Test
+    public void testEviction() {
+        SnapshotCacheStats stats = new SnapshotCacheStats();
+        SnapshotMap map = new SnapshotMap(2, 0, stats);
+
+        map.put(ObjectId.of("E", "ID", 1), row(1));
+        map.put(ObjectId.of("E", "ID", 2), row(2));
+        map.put(ObjectId.of("E", "ID", 3), row(3));
+
+        assertEquals(2, map.size());
+        assertEquals(1, stats.getEvictions());
+        assertNull(map.get(ObjectId.of("E", "ID", 1)));
+        assertEquals(row(3), map.get(ObjectId.of("E", "ID", 3)));
+    }
+
+    @Test
+    public void testExpiration() {
+        SnapshotCacheStats stats = new SnapshotCacheStats();
+        AtomicLong clock = new AtomicLong();
+        SnapshotMap map = new SnapshotMap(10, TimeUnit.MILLISECONDS.toNanos(50), stats) {
+            @Override
+            long nanoTime() {
+                return clock.get();
+            }
+        };
+
+        ObjectId id = ObjectId.of("E", "ID", 1);
+        map.put(id, row(1));
+        assertEquals(row(1), map.get(id));
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(row(1), map.get(id));
+
+        clock.incrementAndGet();
+        assertNull(map.get(id));
+        assertEquals(0, map.size());
+        assertEquals(1, stats.getExpirations());
+    }
+
+    @Test
+    public void testConditionalOps() {
+        SnapshotMap map = new SnapshotMap(10, 0, new SnapshotCacheStats());
+        ObjectId id = ObjectId.of("E", "ID", 1);
+
+        assertNull(map.putIfAbsent(id, row(1)));
+        assertEquals(row(1), map.putIfAbsent(id, row(2)));
+        assertFalse(map.replace(id, row(2), row(3)));
+        assertTrue(map.replace(id, row(1), row(3)));
+        assertFalse(map.remove(id, row(1)));
+        assertTrue(map.remove(id, row(3)));
+        assertTrue(map.isEmpty());
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to ObjectStyle LLC under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ObjectStyle LLC licenses
+ * this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.bootique.cayenne.v42.stream;
+
+import io.bootique.BQRuntime;
+import io.bootique.jdbc.DataSourceFactory;
+import io.bootique.junit5.BQTest;
+import io.bootique.junit5.BQTestFactory;
+import io.bootique.junit5.BQTestTool;
+import org.apache.cayenne.CayenneRuntimeException;
+import org.apache.cayenne.ObjectContext;
+import org.apache.cayenne.configuration.server.ServerRuntime;
+import org.apache.cayenne.query.SQLSelect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+@BQTest
+public class QueryStreamsIT {
+
+    @BQTestTool
+    final BQTestFactory testFactory = new BQTestFactory();
+
+    private ServerRuntime runtime;
+    private QueryStreams streams;
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void createApp() throws SQLException {
+        BQRuntime app = testFactory.app("--config=classpath:config_streams.yml").autoLoadModules().createRuntime();
+        this.runtime = app.getInstance(ServerRuntime.class);
+        this.streams = app.getInstance(QueryStreams.class);
+
+        this.dataSource = app.getInstance(DataSourceFactory.class).forName("ds");
+        exec("CREATE TABLE T1 (id INTEGER NOT NULL PRIMARY KEY, name VARCHAR(100))");
+        exec("INSERT INTO T1 (id, name) VALUES (1, 'a'), (2, 'b'), (3, 'c'), (4, 'd'), (5, 'e')");
+    }
+
+    @AfterEach
+    public void dropTable() throws SQLException {
+        exec("DROP TABLE T1");
+    }
+
+    private void exec(String sql) throws SQLException {
+        try (Connection c = dataSource.getConnection()) {
+            try (Statement st = c.createStatement()) {
+                st.execute(sql);
+            }
+            c.commit();
+        }
+    }
+
+    private SQLSelect<Integer> ids() {
+        return SQLSelect.scalarQuery("SELECT id FROM T1 ORDER BY id", "generic", Integer.class);
+    }
+
+    private int count() {
+        return SQLSelect
+                .scalarQuery("SELECT COUNT(*) FROM T1", "generic", Integer.class)
+                .selectOne(runtime.newContext());
+    }
+
+    @Test
+    public void testDefaultFetchSize() {
+        assertEquals(2, streams.getDefaultFetchSize());
+
+        SQLSelect<Integer> query = ids();
+        streams.stream(runtime.newContext(), query).close();
+        assertEquals(2, query.getStatementFetchSize());
+    }
+
+    @Test
+    public void testStream() {
+        ObjectContext context = runtime.newContext();
+        try (Stream<Integer> s = streams.stream(context, ids())) {
+            assertEquals(asList(2, 4), s.filter(i -> i % 2 == 0).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testStream_HoldsConnectionUntilClosed() {
+
+        // the only connection permitted by the config is held by an open stream
+        try (Stream<Integer> s = streams.stream(runtime.newContext(), ids())) {
+            Iterator<Integer> it = s.iterator();
+            assertEquals(Integer.valueOf(1), it.next());
+            assertThrows(CayenneRuntimeException.class, this::count);
+        }
+
+        assertEquals(5, count());
+    }
+
+    @Test
+    public void testStream_ClosedWhenConsumed() {
+
+        // not closing the stream explicitly
+        List<Integer> ids = streams.stream(runtime.newContext(), ids()).collect(Collectors.toList());
+        assertEquals(asList(1, 2, 3, 4, 5), ids);
+
+        assertEquals(5, count());
+    }
+
+    @Test
+    public void testStreamBatches() {
+        try (Stream<List<Integer>> s = streams.streamBatches(runtime.newContext(), ids(), 2)) {
+            assertEquals(asList(asList(1, 2), asList(3, 4), asList(5)), s.collect(Collectors.toList()));
+        }
+    }
+}